@@ -0,0 +1,91 @@
+package com.nineoldandroids.animation;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per-frame cost of evaluating a keyframe set as its keyframe count grows from 2 to 10,000. The
+ * sequential benchmarks step the fraction like a 10 second animation at 60fps: up to 600
+ * keyframes every frame hits the cached interval and the cost stays flat, with more keyframes
+ * frames skip keyframes and fall back to the binary search. The random benchmark seeks to an
+ * unrelated fraction on every frame and always searches, growing with the logarithm of the
+ * keyframe count.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class KeyframeSetBenchmark {
+
+    private static final int FRAMES = 600;
+    private static final int RANDOM_FRACTIONS = 1024;
+
+    @Param({"2", "10", "100", "1000", "10000"})
+    public int keyframeCount;
+
+    private FloatKeyframeSet mFloatKeyframes;
+    private IntKeyframeSet mIntKeyframes;
+    private KeyframeSet mObjectKeyframes;
+    private final float[] mRandomFractions = new float[RANDOM_FRACTIONS];
+    private int mFrame;
+
+    @Setup
+    public void setUp() {
+        float[] floatValues = new float[keyframeCount];
+        int[] intValues = new int[keyframeCount];
+        Object[] objectValues = new Object[keyframeCount];
+        for (int i = 0; i < keyframeCount; i++) {
+            floatValues[i] = i * 1.5f;
+            intValues[i] = i * 3;
+            objectValues[i] = Float.valueOf(i * 1.5f);
+        }
+        mFloatKeyframes = (FloatKeyframeSet) KeyframeSet.ofFloat(floatValues);
+        mIntKeyframes = (IntKeyframeSet) KeyframeSet.ofInt(intValues);
+        mObjectKeyframes = KeyframeSet.ofObject(objectValues);
+        mObjectKeyframes.setEvaluator(new FloatEvaluator());
+        Random random = new Random(42);
+        for (int i = 0; i < RANDOM_FRACTIONS; i++) {
+            mRandomFractions[i] = random.nextFloat();
+        }
+    }
+
+    private float nextFrameFraction() {
+        mFrame = (mFrame + 1) % FRAMES;
+        return (mFrame + 0.5f) / FRAMES;
+    }
+
+    @Benchmark
+    public float floatSequential() {
+        return mFloatKeyframes.getFloatValue(nextFrameFraction());
+    }
+
+    @Benchmark
+    public int intSequential() {
+        return mIntKeyframes.getIntValue(nextFrameFraction());
+    }
+
+    @Benchmark
+    public Object objectSequential() {
+        return mObjectKeyframes.getValue(nextFrameFraction());
+    }
+
+    @Benchmark
+    public float floatRandom() {
+        mFrame = (mFrame + 1) & (RANDOM_FRACTIONS - 1);
+        return mFloatKeyframes.getFloatValue(mRandomFractions[mFrame]);
+    }
+}
@@ -0,0 +1,13 @@
+package com.togglebutton.rebound;
+
+/**
+ * JVM replacement of the Android looper factory, so the systems created with their
+ * <code>create()</code> methods can be instantiated. The returned looper never fires on its own;
+ * benchmarks drive the systems with {@link BaseSpringSystem#loop(double)}.
+ */
+abstract class AndroidSpringLooperFactory {
+
+  public static SpringLooper createSpringLooper() {
+    return new VirtualClockLooper();
+  }
+}
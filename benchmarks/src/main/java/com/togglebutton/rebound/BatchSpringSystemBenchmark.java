@@ -0,0 +1,78 @@
+package com.togglebutton.rebound;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Frames per second a {@link BatchSpringSystem} reaches with a growing number of batch springs,
+ * against a {@link BaseSpringSystem} moving the same number of regular springs. Each operation is
+ * one 60fps frame, so the score is the frame rate the spring engine alone would allow.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BatchSpringSystemBenchmark {
+
+  @Param({"100", "1000", "10000"})
+  public int springCount;
+
+  private BaseSpringSystem mBaseSystem;
+  private Spring[] mSprings;
+  private BatchSpringSystem mBatchSystem;
+  private int[] mHandles;
+
+  @Setup
+  public void setUp() {
+    mBaseSystem = SpringBenchmarks.createSystem();
+    mSprings = new Spring[springCount];
+    for (int i = 0; i < springCount; i++) {
+      mSprings[i] = SpringBenchmarks.createMovingSpring(mBaseSystem);
+    }
+
+    mBatchSystem = new BatchSpringSystem(new VirtualClockLooper());
+    mHandles = new int[springCount];
+    for (int i = 0; i < springCount; i++) {
+      mHandles[i] = mBatchSystem.createBatchSpring(SpringBenchmarks.OSCILLATING);
+      kick(mHandles[i]);
+    }
+  }
+
+  @Benchmark
+  public int baseSpringSystem() {
+    mBaseSystem.loop(16.667);
+    SpringBenchmarks.keepMoving(mBaseSystem, mSprings);
+    return mBaseSystem.getActiveSpringCount();
+  }
+
+  @Benchmark
+  public int batchSpringSystem() {
+    mBatchSystem.loop(16.667);
+    if (mBatchSystem.getActiveBatchSpringCount() < springCount) {
+      for (int handle : mHandles) {
+        if (mBatchSystem.isAtRest(handle)) {
+          kick(handle);
+        }
+      }
+    }
+    return mBatchSystem.getActiveBatchSpringCount();
+  }
+
+  private void kick(int handle) {
+    mBatchSystem.setCurrentValue(handle, 0);
+    mBatchSystem.setEndValue(handle, 1);
+  }
+}
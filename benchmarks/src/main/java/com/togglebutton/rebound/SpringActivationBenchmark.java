@@ -0,0 +1,78 @@
+package com.togglebutton.rebound;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of springs joining and leaving the active set, as in lists where every bound row starts a
+ * short animation. Each operation runs two frames of a system that keeps 100 springs moving.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SpringActivationBenchmark {
+
+  private static final int MOVING_SPRINGS = 100;
+  private static final int RESTING_SPRINGS = 100;
+
+  private BaseSpringSystem mSpringSystem;
+  private Spring[] mMovingSprings;
+  private Spring[] mRestingSprings;
+  private int mNext;
+
+  @Setup
+  public void setUp() {
+    mSpringSystem = SpringBenchmarks.createSystem();
+    mMovingSprings = new Spring[MOVING_SPRINGS];
+    for (int i = 0; i < MOVING_SPRINGS; i++) {
+      mMovingSprings[i] = SpringBenchmarks.createMovingSpring(mSpringSystem);
+    }
+    mRestingSprings = new Spring[RESTING_SPRINGS];
+    for (int i = 0; i < RESTING_SPRINGS; i++) {
+      mRestingSprings[i] = mSpringSystem.createSpring();
+    }
+  }
+
+  /**
+   * a resting spring is given a new end value, advanced for a frame, then put back at rest and
+   * removed from the active set on the next frame
+   */
+  @Benchmark
+  public int activateAndRest() {
+    Spring spring = mRestingSprings[mNext];
+    mNext = (mNext + 1) % RESTING_SPRINGS;
+    spring.setEndValue(spring.getEndValue() == 0 ? 1 : 0);
+    mSpringSystem.loop(16.667);
+    spring.setAtRest();
+    mSpringSystem.loop(16.667);
+    SpringBenchmarks.keepMoving(mSpringSystem, mMovingSprings);
+    return mSpringSystem.getActiveSpringCount();
+  }
+
+  /**
+   * a spring is created, animated for a frame and destroyed
+   */
+  @Benchmark
+  public int createAndDestroy() {
+    Spring spring = mSpringSystem.createSpring();
+    spring.setEndValue(1);
+    mSpringSystem.loop(16.667);
+    spring.destroy();
+    mSpringSystem.loop(16.667);
+    SpringBenchmarks.keepMoving(mSpringSystem, mMovingSprings);
+    return mSpringSystem.getActiveSpringCount();
+  }
+}
@@ -0,0 +1,53 @@
+package com.togglebutton.rebound;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of advancing a single spring by one frame, for frame deltas from a 240Hz display to a
+ * frame long enough to be clamped, with the step integrator and the analytic solver.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SpringAdvanceBenchmark {
+
+  @Param({"4.167", "16.667", "33.333", "100"})
+  public double frameMillis;
+
+  @Param({"false", "true"})
+  public boolean analytic;
+
+  private Spring mSpring;
+  private double mDeltaSeconds;
+
+  @Setup
+  public void setUp() {
+    mSpring = SpringBenchmarks.createMovingSpring(SpringBenchmarks.createSystem());
+    mSpring.setAnalyticSolverEnabled(analytic);
+    mDeltaSeconds = frameMillis / 1000;
+  }
+
+  @Benchmark
+  public double advance() {
+    if (mSpring.isAtRest()) {
+      SpringBenchmarks.kick(mSpring);
+    }
+    mSpring.advance(mDeltaSeconds);
+    return mSpring.getCurrentValue();
+  }
+}
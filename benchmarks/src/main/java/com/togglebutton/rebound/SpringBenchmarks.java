@@ -0,0 +1,53 @@
+package com.togglebutton.rebound;
+
+/**
+ * shared setup of the spring benchmarks
+ */
+final class SpringBenchmarks {
+
+  /**
+   * an undamped spring keeps oscillating for about 200,000 frames before the numerical damping of
+   * the solvers brings it to rest, see {@link #keepMoving}
+   */
+  static final SpringConfig OSCILLATING = new SpringConfig(200, 0);
+
+  private SpringBenchmarks() {
+  }
+
+  /**
+   * create a system driven only by explicit calls to {@link BaseSpringSystem#loop(double)}
+   */
+  static BaseSpringSystem createSystem() {
+    return new BaseSpringSystem(new VirtualClockLooper());
+  }
+
+  /**
+   * create a spring that keeps oscillating around 1
+   */
+  static Spring createMovingSpring(BaseSpringSystem springSystem) {
+    Spring spring = springSystem.createSpring();
+    spring.setSpringConfig(OSCILLATING);
+    kick(spring);
+    return spring;
+  }
+
+  /**
+   * restart the given springs if any of them came to rest. Springs created together come to rest
+   * on the same frame, so this costs a single comparison on all the other frames.
+   */
+  static void keepMoving(BaseSpringSystem springSystem, Spring[] springs) {
+    if (springSystem.getActiveSpringCount() >= springs.length) {
+      return;
+    }
+    for (Spring spring : springs) {
+      if (spring.isAtRest()) {
+        kick(spring);
+      }
+    }
+  }
+
+  static void kick(Spring spring) {
+    spring.setCurrentValue(0);
+    spring.setEndValue(1);
+  }
+}
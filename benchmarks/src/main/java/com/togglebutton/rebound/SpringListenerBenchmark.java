@@ -0,0 +1,62 @@
+package com.togglebutton.rebound;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of the listener fan-out of one frame: 100 moving springs with 0, 1 or 10 update
+ * listeners each.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SpringListenerBenchmark {
+
+  private static final int SPRING_COUNT = 100;
+
+  @Param({"0", "1", "10"})
+  public int listenerCount;
+
+  private BaseSpringSystem mSpringSystem;
+  private Spring[] mMovingSprings;
+  private double mSum;
+
+  @Setup
+  public void setUp() {
+    mSpringSystem = SpringBenchmarks.createSystem();
+    mMovingSprings = new Spring[SPRING_COUNT];
+    for (int i = 0; i < SPRING_COUNT; i++) {
+      Spring spring = SpringBenchmarks.createMovingSpring(mSpringSystem);
+      mMovingSprings[i] = spring;
+      for (int j = 0; j < listenerCount; j++) {
+        spring.addListener(new SimpleSpringListener() {
+          @Override
+          public void onSpringUpdate(Spring spring) {
+            mSum += spring.getCurrentValue();
+          }
+        });
+      }
+    }
+  }
+
+  @Benchmark
+  public double loop() {
+    mSpringSystem.loop(16.667);
+    SpringBenchmarks.keepMoving(mSpringSystem, mMovingSprings);
+    return mSum;
+  }
+}
@@ -0,0 +1,50 @@
+package com.togglebutton.rebound;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of one 60fps frame of {@link BaseSpringSystem#loop(double)} with a growing number of
+ * active springs and no listeners.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SpringSystemLoopBenchmark {
+
+  @Param({"1", "100", "10000"})
+  public int springCount;
+
+  private BaseSpringSystem mSpringSystem;
+  private Spring[] mMovingSprings;
+
+  @Setup
+  public void setUp() {
+    mSpringSystem = SpringBenchmarks.createSystem();
+    mMovingSprings = new Spring[springCount];
+    for (int i = 0; i < springCount; i++) {
+      mMovingSprings[i] = SpringBenchmarks.createMovingSpring(mSpringSystem);
+    }
+  }
+
+  @Benchmark
+  public int loop() {
+    mSpringSystem.loop(16.667);
+    SpringBenchmarks.keepMoving(mSpringSystem, mMovingSprings);
+    return mSpringSystem.getActiveSpringCount();
+  }
+}
@@ -0,0 +1,19 @@
+package android.os;
+
+/**
+ * JVM stand-in reporting Jelly Bean, so animators are driven by the {@link
+ * android.view.Choreographer} stub.
+ */
+public class Build {
+
+    public static class VERSION {
+        public static final String SDK = "16";
+        public static final int SDK_INT = 16;
+    }
+
+    public static class VERSION_CODES {
+        public static final int HONEYCOMB = 11;
+        public static final int ICE_CREAM_SANDWICH = 14;
+        public static final int JELLY_BEAN = 16;
+    }
+}
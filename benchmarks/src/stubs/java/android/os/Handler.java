@@ -0,0 +1,22 @@
+package android.os;
+
+/**
+ * JVM stand-in for the Android handler. Messages are never delivered; the benchmarks run on the
+ * {@link android.view.Choreographer} path.
+ */
+public class Handler {
+
+    public void handleMessage(Message msg) {
+    }
+
+    public final boolean sendEmptyMessage(int what) {
+        return true;
+    }
+
+    public final boolean sendEmptyMessageDelayed(int what, long delayMillis) {
+        return true;
+    }
+
+    public final void removeMessages(int what) {
+    }
+}
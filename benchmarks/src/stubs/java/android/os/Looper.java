@@ -0,0 +1,17 @@
+package android.os;
+
+/**
+ * JVM stand-in for the Android looper. Every thread is treated as a looper thread.
+ */
+public class Looper {
+
+    private static final Looper sLooper = new Looper();
+
+    public static Looper myLooper() {
+        return sLooper;
+    }
+
+    public static Looper getMainLooper() {
+        return sLooper;
+    }
+}
@@ -0,0 +1,8 @@
+package android.os;
+
+/**
+ * JVM stand-in for the Android message, see {@link Handler}.
+ */
+public class Message {
+    public int what;
+}
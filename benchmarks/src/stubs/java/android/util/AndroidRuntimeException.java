@@ -0,0 +1,11 @@
+package android.util;
+
+/**
+ * JVM stand-in for the Android exception of the same name.
+ */
+public class AndroidRuntimeException extends RuntimeException {
+
+    public AndroidRuntimeException(String name) {
+        super(name);
+    }
+}
@@ -0,0 +1,95 @@
+package android.view;
+
+import android.view.animation.AnimationUtils;
+
+import java.util.Arrays;
+
+/**
+ * JVM stand-in for the Android choreographer. Frames are run by the benchmarks themselves through
+ * {@link #doFrame(long)}, which advances the {@link AnimationUtils} clock and runs the callbacks
+ * that are due. Callbacks must be posted from a single thread.
+ */
+public final class Choreographer {
+
+    private static final Choreographer sInstance = new Choreographer();
+    private static final int INITIAL_CAPACITY = 16;
+
+    private FrameCallback[] mCallbacks = new FrameCallback[INITIAL_CAPACITY];
+    private long[] mDueTimes = new long[INITIAL_CAPACITY];
+    private int mCount;
+    // callbacks taken for the frame being run, so callbacks can repost themselves
+    private FrameCallback[] mRunning = new FrameCallback[INITIAL_CAPACITY];
+
+    public interface FrameCallback {
+        void doFrame(long frameTimeNanos);
+    }
+
+    public static Choreographer getInstance() {
+        return sInstance;
+    }
+
+    public void postFrameCallback(FrameCallback callback) {
+        postFrameCallbackDelayed(callback, 0);
+    }
+
+    public void postFrameCallbackDelayed(FrameCallback callback, long delayMillis) {
+        if (mCount == mCallbacks.length) {
+            mCallbacks = Arrays.copyOf(mCallbacks, mCount * 2);
+            mDueTimes = Arrays.copyOf(mDueTimes, mCount * 2);
+        }
+        mCallbacks[mCount] = callback;
+        mDueTimes[mCount] = AnimationUtils.currentAnimationTimeMillis() + delayMillis;
+        mCount++;
+    }
+
+    public void removeFrameCallback(FrameCallback callback) {
+        int kept = 0;
+        for (int i = 0; i < mCount; i++) {
+            if (mCallbacks[i] != callback) {
+                mCallbacks[kept] = mCallbacks[i];
+                mDueTimes[kept] = mDueTimes[i];
+                kept++;
+            }
+        }
+        Arrays.fill(mCallbacks, kept, mCount, null);
+        mCount = kept;
+    }
+
+    /**
+     * Sets the animation clock to the given time and runs the callbacks due by then. Callbacks
+     * posted while the frame runs are run by the next frame.
+     *
+     * @param frameTimeMillis The time of the frame, in milliseconds.
+     * @return The number of callbacks run.
+     */
+    public static int doFrame(long frameTimeMillis) {
+        return sInstance.runFrame(frameTimeMillis);
+    }
+
+    private int runFrame(long frameTimeMillis) {
+        AnimationUtils.setCurrentAnimationTimeMillis(frameTimeMillis);
+        if (mRunning.length < mCount) {
+            mRunning = new FrameCallback[mCallbacks.length];
+        }
+        int running = 0;
+        int kept = 0;
+        for (int i = 0; i < mCount; i++) {
+            if (mDueTimes[i] <= frameTimeMillis) {
+                mRunning[running++] = mCallbacks[i];
+            } else {
+                mCallbacks[kept] = mCallbacks[i];
+                mDueTimes[kept] = mDueTimes[i];
+                kept++;
+            }
+        }
+        Arrays.fill(mCallbacks, kept, mCount, null);
+        mCount = kept;
+        long frameTimeNanos = frameTimeMillis * 1000000L;
+        for (int i = 0; i < running; i++) {
+            FrameCallback callback = mRunning[i];
+            mRunning[i] = null;
+            callback.doFrame(frameTimeNanos);
+        }
+        return running;
+    }
+}
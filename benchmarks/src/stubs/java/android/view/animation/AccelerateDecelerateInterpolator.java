@@ -0,0 +1,11 @@
+package android.view.animation;
+
+/**
+ * JVM stand-in for the Android interpolator of the same name.
+ */
+public class AccelerateDecelerateInterpolator implements Interpolator {
+
+    public float getInterpolation(float input) {
+        return (float) (Math.cos((input + 1) * Math.PI) / 2.0f) + 0.5f;
+    }
+}
@@ -0,0 +1,18 @@
+package android.view.animation;
+
+/**
+ * JVM stand-in for the Android animation clock. Time only moves when a benchmark moves it, see
+ * {@link android.view.Choreographer#doFrame(long)}.
+ */
+public class AnimationUtils {
+
+    private static long sCurrentTimeMillis;
+
+    public static long currentAnimationTimeMillis() {
+        return sCurrentTimeMillis;
+    }
+
+    public static void setCurrentAnimationTimeMillis(long currentTimeMillis) {
+        sCurrentTimeMillis = currentTimeMillis;
+    }
+}
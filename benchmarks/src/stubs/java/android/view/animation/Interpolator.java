@@ -0,0 +1,8 @@
+package android.view.animation;
+
+/**
+ * JVM stand-in for the Android interpolator interface.
+ */
+public interface Interpolator {
+    float getInterpolation(float input);
+}
@@ -0,0 +1,11 @@
+package android.view.animation;
+
+/**
+ * JVM stand-in for the Android interpolator of the same name.
+ */
+public class LinearInterpolator implements Interpolator {
+
+    public float getInterpolation(float input) {
+        return input;
+    }
+}
@@ -0,0 +1,124 @@
+package com.nineoldandroids.animation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import android.view.Choreographer;
+import android.view.animation.AnimationUtils;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks that running animators which report their value through {@link
+ * ValueAnimator.FloatUpdateListener} or {@link ValueAnimator.IntUpdateListener} allocates nothing
+ * per frame once they are started.
+ */
+public class PrimitiveUpdateAllocationTest {
+
+    private static final int ANIMATOR_COUNT = 50;
+    private static final int WARMUP_FRAMES = 2000;
+    private static final int MEASURED_FRAMES = 1000;
+    private static final long FRAME_MILLIS = 16;
+
+    private final ArrayList<ValueAnimator> mAnimators = new ArrayList<ValueAnimator>();
+    private com.sun.management.ThreadMXBean mThreadBean;
+    private long mFrameTime;
+    private float mFloatSum;
+    private long mIntSum;
+
+    @Before
+    public void setUp() {
+        java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+        mThreadBean = (com.sun.management.ThreadMXBean) threadBean;
+        assumeTrue(mThreadBean.isThreadAllocatedMemorySupported());
+        mThreadBean.setThreadAllocatedMemoryEnabled(true);
+        mFrameTime = AnimationUtils.currentAnimationTimeMillis();
+    }
+
+    @After
+    public void tearDown() {
+        for (ValueAnimator animator : mAnimators) {
+            animator.cancel();
+        }
+        runFrames(2);
+    }
+
+    @Test
+    public void floatUpdateListenersDoNotAllocate() {
+        for (int i = 0; i < ANIMATOR_COUNT; i++) {
+            ValueAnimator animator = ValueAnimator.ofFloat(0f, 100f + i);
+            animator.addFloatUpdateListener(new ValueAnimator.FloatUpdateListener() {
+                @Override
+                public void onAnimationUpdate(ValueAnimator animation, float value) {
+                    mFloatSum += value;
+                }
+            });
+            start(animator);
+        }
+        assertEquals(0, allocatedBytesPerFrame(), 0);
+    }
+
+    @Test
+    public void intUpdateListenersDoNotAllocate() {
+        for (int i = 0; i < ANIMATOR_COUNT; i++) {
+            ValueAnimator animator = ValueAnimator.ofInt(0, 100 + i);
+            animator.addIntUpdateListener(new ValueAnimator.IntUpdateListener() {
+                @Override
+                public void onAnimationUpdate(ValueAnimator animation, int value) {
+                    mIntSum += value;
+                }
+            });
+            start(animator);
+        }
+        assertEquals(0, allocatedBytesPerFrame(), 0);
+    }
+
+    @Test
+    public void primitiveGettersDoNotAllocate() {
+        for (int i = 0; i < ANIMATOR_COUNT; i++) {
+            ValueAnimator animator = ValueAnimator.ofFloat(0f, 100f + i);
+            animator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+                @Override
+                public void onAnimationUpdate(ValueAnimator animation) {
+                    mFloatSum += animation.getAnimatedFloatValue();
+                    mIntSum += animation.getAnimatedIntValue();
+                }
+            });
+            start(animator);
+        }
+        assertEquals(0, allocatedBytesPerFrame(), 0);
+    }
+
+    private void start(ValueAnimator animator) {
+        // long enough for the animators to run through all the frames of the test
+        animator.setDuration((WARMUP_FRAMES + MEASURED_FRAMES + 10) * FRAME_MILLIS * 2);
+        animator.start();
+        mAnimators.add(animator);
+    }
+
+    /**
+     * Runs the animators until they reach a steady state, then returns the bytes the test thread
+     * allocated per frame.
+     */
+    private double allocatedBytesPerFrame() {
+        runFrames(WARMUP_FRAMES);
+        long threadId = Thread.currentThread().getId();
+        long before = mThreadBean.getThreadAllocatedBytes(threadId);
+        runFrames(MEASURED_FRAMES);
+        long after = mThreadBean.getThreadAllocatedBytes(threadId);
+        return (double) (after - before) / MEASURED_FRAMES;
+    }
+
+    private void runFrames(int count) {
+        for (int i = 0; i < count; i++) {
+            mFrameTime += FRAME_MILLIS;
+            Choreographer.doFrame(mFrameTime);
+        }
+    }
+}
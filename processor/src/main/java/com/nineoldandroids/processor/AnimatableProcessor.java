@@ -0,0 +1,250 @@
+package com.nineoldandroids.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Generates a <code>FloatProperty</code> or <code>IntProperty</code> for every setter annotated
+ * with <code>com.nineoldandroids.util.Animatable</code>. The properties of a class are registered with
+ * <code>PropertyRegistry</code> from the static initializer of a class generated in the same
+ * package and named after it with the <code>$$Properties</code> suffix, which
+ * <code>PropertyRegistry.find()</code> loads the first time the class is looked up.
+ */
+public class AnimatableProcessor extends AbstractProcessor {
+
+    static final String ANIMATABLE = "com.nineoldandroids.util.Animatable";
+    static final String GENERATED_SUFFIX = "$$Properties";
+
+    // an annotated setter and the getter of the same property
+    private static final class Accessor {
+        final String name;
+        final TypeKind kind;
+        final ExecutableElement setter;
+        final ExecutableElement getter;
+
+        Accessor(String name, TypeKind kind, ExecutableElement setter, ExecutableElement getter) {
+            this.name = name;
+            this.kind = kind;
+            this.setter = setter;
+            this.getter = getter;
+        }
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(ANIMATABLE);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (annotations.isEmpty()) {
+            return false;
+        }
+        TypeElement animatable = annotations.iterator().next();
+        Map<TypeElement, List<Accessor>> accessors =
+                new LinkedHashMap<TypeElement, List<Accessor>>();
+        for (ExecutableElement setter :
+                ElementFilter.methodsIn(roundEnv.getElementsAnnotatedWith(animatable))) {
+            TypeElement hostType = (TypeElement) setter.getEnclosingElement();
+            Accessor accessor = toAccessor(hostType, setter, animatable);
+            if (accessor == null) {
+                continue;
+            }
+            List<Accessor> hostAccessors = accessors.get(hostType);
+            if (hostAccessors == null) {
+                hostAccessors = new ArrayList<Accessor>();
+                accessors.put(hostType, hostAccessors);
+            }
+            hostAccessors.add(accessor);
+        }
+        for (Map.Entry<TypeElement, List<Accessor>> entry : accessors.entrySet()) {
+            if (checkHost(entry.getKey(), entry.getValue())) {
+                write(entry.getKey(), entry.getValue());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks an annotated setter and finds its getter, reporting an error and returning null if
+     * no property can be generated for it.
+     */
+    private Accessor toAccessor(
+            TypeElement hostType, ExecutableElement setter, TypeElement animatable) {
+        String setterName = setter.getSimpleName().toString();
+        if (setter.getModifiers().contains(Modifier.PRIVATE) ||
+                setter.getModifiers().contains(Modifier.STATIC)) {
+            error(setter, "@Animatable setter " + setterName + " must not be private or static");
+            return null;
+        }
+        if (setter.getParameters().size() != 1) {
+            error(setter, "@Animatable setter " + setterName + " must take a single value");
+            return null;
+        }
+        TypeKind kind = setter.getParameters().get(0).asType().getKind();
+        if (kind != TypeKind.FLOAT && kind != TypeKind.INT) {
+            error(setter, "@Animatable setter " + setterName + " must take a float or an int");
+            return null;
+        }
+
+        String name = getName(setter, animatable);
+        if (name.length() == 0 && setterName.startsWith("set") && setterName.length() > 3) {
+            name = Character.toLowerCase(setterName.charAt(3)) + setterName.substring(4);
+        }
+        if (name.length() == 0) {
+            error(setter, "@Animatable setter " + setterName +
+                    " needs a property name, either from a set prefix or in the annotation");
+            return null;
+        }
+
+        String suffix = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        ExecutableElement getter = null;
+        for (ExecutableElement method :
+                ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(hostType))) {
+            String methodName = method.getSimpleName().toString();
+            if ((methodName.equals("get" + suffix) || methodName.equals("is" + suffix)) &&
+                    method.getParameters().isEmpty() &&
+                    method.getReturnType().getKind() == kind &&
+                    !method.getModifiers().contains(Modifier.PRIVATE) &&
+                    !method.getModifiers().contains(Modifier.STATIC)) {
+                getter = method;
+                break;
+            }
+        }
+        if (getter == null) {
+            error(setter, "@Animatable setter " + setterName + " has no get" + suffix +
+                    "() or is" + suffix + "() returning " + kind.toString().toLowerCase());
+            return null;
+        }
+        return new Accessor(name, kind, setter, getter);
+    }
+
+    private static String getName(ExecutableElement setter, TypeElement animatable) {
+        for (AnnotationMirror mirror : setter.getAnnotationMirrors()) {
+            if (!mirror.getAnnotationType().asElement().equals(animatable)) {
+                continue;
+            }
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> value :
+                    mirror.getElementValues().entrySet()) {
+                if (value.getKey().getSimpleName().contentEquals("value")) {
+                    return value.getValue().getValue().toString();
+                }
+            }
+        }
+        return "";
+    }
+
+    /**
+     * Checks that the generated class can reach the host class and that its property names are
+     * unique.
+     */
+    private boolean checkHost(TypeElement hostType, List<Accessor> accessors) {
+        boolean valid = true;
+        for (Element e = hostType; e.getKind() != ElementKind.PACKAGE;
+                e = e.getEnclosingElement()) {
+            if (e.getModifiers().contains(Modifier.PRIVATE)) {
+                error(hostType, "classes with @Animatable setters must not be private");
+                valid = false;
+                break;
+            }
+        }
+        Set<String> names = new HashSet<String>();
+        for (Accessor accessor : accessors) {
+            if (!names.add(accessor.name)) {
+                error(accessor.setter, "duplicate @Animatable property " + accessor.name);
+                valid = false;
+            }
+        }
+        return valid;
+    }
+
+    private void write(TypeElement hostType, List<Accessor> accessors) {
+        PackageElement pkg = processingEnv.getElementUtils().getPackageOf(hostType);
+        String packageName = pkg.getQualifiedName().toString();
+        String binaryName = processingEnv.getElementUtils().getBinaryName(hostType).toString();
+        String simpleName = (packageName.length() == 0 ? binaryName :
+                binaryName.substring(packageName.length() + 1)) + GENERATED_SUFFIX;
+        String host = processingEnv.getTypeUtils().erasure(hostType.asType()).toString();
+
+        StringBuilder source = new StringBuilder();
+        source.append("// Generated from the @Animatable setters of ").append(host)
+                .append(", do not edit.\n");
+        if (packageName.length() > 0) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("final class ").append(simpleName).append(" {\n\n");
+        source.append("    static {\n");
+        for (Accessor accessor : accessors) {
+            boolean isFloat = accessor.kind == TypeKind.FLOAT;
+            String propertyType = isFloat ? "FloatProperty" : "IntProperty";
+            source.append("        com.nineoldandroids.util.PropertyRegistry.register(")
+                    .append(host).append(".class,\n");
+            source.append("                new com.nineoldandroids.util.").append(propertyType)
+                    .append('<').append(host).append(">(\"").append(accessor.name)
+                    .append("\") {\n");
+            source.append("            @Override\n");
+            source.append("            public void setValue(").append(host).append(" object, ")
+                    .append(isFloat ? "float" : "int").append(" value) {\n");
+            source.append("                object.").append(accessor.setter.getSimpleName())
+                    .append("(value);\n");
+            source.append("            }\n\n");
+            source.append("            @Override\n");
+            source.append("            public ").append(isFloat ? "Float" : "Integer")
+                    .append(" get(").append(host).append(" object) {\n");
+            source.append("                return object.").append(accessor.getter.getSimpleName())
+                    .append("();\n");
+            source.append("            }\n");
+            source.append("        });\n");
+        }
+        source.append("    }\n\n");
+        source.append("    private ").append(simpleName).append("() {}\n");
+        source.append("}\n");
+
+        String qualifiedName = packageName.length() == 0 ? simpleName :
+                packageName + "." + simpleName;
+        try {
+            JavaFileObject file =
+                    processingEnv.getFiler().createSourceFile(qualifiedName, hostType);
+            Writer writer = file.openWriter();
+            try {
+                writer.write(source.toString());
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            error(hostType, "could not write " + qualifiedName + ": " + e.getMessage());
+        }
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
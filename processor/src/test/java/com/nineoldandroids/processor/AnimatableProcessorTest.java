@@ -0,0 +1,131 @@
+package com.nineoldandroids.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.nineoldandroids.util.FloatProperty;
+import com.nineoldandroids.util.IntProperty;
+import com.nineoldandroids.util.Property;
+import com.nineoldandroids.util.PropertyRegistry;
+
+/**
+ * Compiles annotated classes with the processor and resolves their generated properties through
+ * PropertyRegistry, the way ObjectAnimator does.
+ */
+public class AnimatableProcessorTest {
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private static final String CHAT_HEAD =
+            "package demo;\n" +
+            "import com.nineoldandroids.util.Animatable;\n" +
+            "public class ChatHead {\n" +
+            "    float offset;\n" +
+            "    int alphaLevel;\n" +
+            "    @Animatable public void setOffset(float offset) { this.offset = offset; }\n" +
+            "    public float getOffset() { return offset; }\n" +
+            "    @Animatable(\"alpha\") void applyAlpha(int alpha) { alphaLevel = alpha; }\n" +
+            "    int getAlpha() { return alphaLevel; }\n" +
+            "    public void setScale(float scale) {}\n" +
+            "    public float getScale() { return 1f; }\n" +
+            "    public static class Bubble extends ChatHead {}\n" +
+            "}\n";
+
+    @Test
+    public void generatedPropertiesAreFoundByName() throws Exception {
+        ClassLoader loader = compile("demo/ChatHead.java", CHAT_HEAD);
+        Class chatHead = loader.loadClass("demo.ChatHead");
+        Object target = chatHead.newInstance();
+
+        Property offset = PropertyRegistry.find(chatHead, "offset");
+        assertTrue(offset instanceof FloatProperty);
+        ((FloatProperty) offset).setValue(target, 3.5f);
+        assertEquals(3.5f, (Float) offset.get(target), 0f);
+
+        Property alpha = PropertyRegistry.find(chatHead, "alpha");
+        assertTrue(alpha instanceof IntProperty);
+        ((IntProperty) alpha).setValue(target, 7);
+        assertEquals(Integer.valueOf(7), alpha.get(target));
+
+        // only annotated setters are generated, the rest is left to reflection
+        assertNull(PropertyRegistry.find(chatHead, "scale"));
+    }
+
+    @Test
+    public void subclassesResolveTheGeneratedPropertiesOfTheirSuperclass() throws Exception {
+        ClassLoader loader = compile("demo/ChatHead.java", CHAT_HEAD);
+        Class bubble = loader.loadClass("demo.ChatHead$Bubble");
+        Object target = bubble.newInstance();
+
+        Property offset = PropertyRegistry.find(bubble, "offset");
+        assertTrue(offset instanceof FloatProperty);
+        ((FloatProperty) offset).setValue(target, 2f);
+        assertEquals(2f, (Float) offset.get(target), 0f);
+    }
+
+    @Test
+    public void setterWithoutGetterIsAnError() throws Exception {
+        String source =
+                "package demo;\n" +
+                "import com.nineoldandroids.util.Animatable;\n" +
+                "public class NoGetter {\n" +
+                "    @Animatable public void setOffset(float offset) {}\n" +
+                "}\n";
+        StringWriter output = new StringWriter();
+        assertFalse(run(output, "demo/NoGetter.java", source));
+        assertTrue(output.toString(), output.toString().contains("has no getOffset()"));
+    }
+
+    private ClassLoader compile(String path, String source) throws IOException {
+        StringWriter output = new StringWriter();
+        assertTrue(output.toString(), run(output, path, source));
+        File classes = new File(mFolder.getRoot(), "classes");
+        return new URLClassLoader(new URL[] { classes.toURI().toURL() },
+                getClass().getClassLoader());
+    }
+
+    private boolean run(StringWriter output, String path, String source) throws IOException {
+        File sources = mFolder.newFolder();
+        File file = new File(sources, path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), source.getBytes(Charset.forName("UTF-8")));
+        File classes = new File(mFolder.getRoot(), "classes");
+        classes.mkdirs();
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
+        List<String> options = Arrays.asList(
+                "-classpath", System.getProperty("java.class.path"),
+                "-d", classes.getPath(),
+                "-s", sources.getPath());
+        try {
+            JavaCompiler.CompilationTask task = compiler.getTask(output, fileManager, null, options,
+                    null, fileManager.getJavaFileObjects(file));
+            task.setProcessors(Arrays.asList(new AnimatableProcessor()));
+            return task.call();
+        } finally {
+            fileManager.close();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.nineoldandroids.animation;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Message;
+import android.view.Choreographer;
+import android.view.animation.AnimationUtils;
+
+/**
+ * Source of the timing pulse driving the animations of a thread. On devices that have a
+ * {@link Choreographer} the pulse is the display vsync, otherwise it is a {@link Handler} message
+ * sent every {@link ValueAnimator#getFrameDelay()} milliseconds.
+ */
+abstract class AnimationFrameSource {
+
+    /**
+     * Receives the frames requested with {@link AnimationFrameSource#scheduleFrame()}.
+     */
+    interface Callback {
+        /**
+         * Called once per frame on the thread that created the frame source.
+         *
+         * @param frameTime The time of the frame in the
+         * {@link AnimationUtils#currentAnimationTimeMillis()} time base, in milliseconds.
+         */
+        void doAnimationFrame(long frameTime);
+    }
+
+    final Callback mCallback;
+
+    private boolean mFrameScheduled;
+    // set when the scheduled frame was posted with a delay by scheduleFrameAt()
+    private boolean mFrameDelayed;
+
+    AnimationFrameSource(Callback callback) {
+        mCallback = callback;
+    }
+
+    /**
+     * Creates the frame source best suited to the platform, for the calling thread. The thread
+     * must have a Looper.
+     */
+    static AnimationFrameSource create(Callback callback) {
+        final int version = Integer.valueOf(Build.VERSION.SDK);
+        if (version >= Build.VERSION_CODES.JELLY_BEAN) {
+            return new ChoreographerFrameSource(callback);
+        }
+        return new HandlerFrameSource(callback);
+    }
+
+    /**
+     * Requests a call to {@link Callback#doAnimationFrame(long)} on the next frame. Requests made
+     * before that frame runs are coalesced, so each frame is computed once.
+     */
+    final void scheduleFrame() {
+        if (mFrameScheduled && mFrameDelayed) {
+            removeFrame();
+            mFrameScheduled = false;
+        }
+        if (!mFrameScheduled) {
+            mFrameScheduled = true;
+            mFrameDelayed = false;
+            postFrame();
+        }
+    }
+
+    /**
+     * Requests a call to {@link Callback#doAnimationFrame(long)} on the first frame after the
+     * given time, sleeping until then. Has no effect if a frame is already scheduled.
+     *
+     * @param frameTime The time in the {@link AnimationUtils#currentAnimationTimeMillis()}
+     * time base, in milliseconds.
+     */
+    final void scheduleFrameAt(long frameTime) {
+        if (!mFrameScheduled) {
+            mFrameScheduled = true;
+            mFrameDelayed = true;
+            long delay = frameTime - AnimationUtils.currentAnimationTimeMillis();
+            postFrameDelayed(Math.max(0, delay));
+        }
+    }
+
+    final void dispatchFrame(long frameTime) {
+        mFrameScheduled = false;
+        mFrameDelayed = false;
+        mCallback.doAnimationFrame(frameTime);
+    }
+
+    abstract void postFrame();
+
+    abstract void postFrameDelayed(long delayMillis);
+
+    abstract void removeFrame();
+
+    /**
+     * Frame source tied to the display vsync. Frames run with the vsync timestamp, so every
+     * animation of a frame is computed for the time the frame is presented.
+     * {@link ValueAnimator#setFrameDelay(long)} has no effect.
+     */
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private static class ChoreographerFrameSource extends AnimationFrameSource
+            implements Choreographer.FrameCallback {
+        private static final long NANOS_PER_MS = 1000000;
+
+        private final Choreographer mChoreographer;
+
+        ChoreographerFrameSource(Callback callback) {
+            super(callback);
+            mChoreographer = Choreographer.getInstance();
+        }
+
+        @Override
+        void postFrame() {
+            mChoreographer.postFrameCallback(this);
+        }
+
+        @Override
+        void postFrameDelayed(long delayMillis) {
+            mChoreographer.postFrameCallbackDelayed(this, delayMillis);
+        }
+
+        @Override
+        void removeFrame() {
+            mChoreographer.removeFrameCallback(this);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            // The frame time and the animation clock share the monotonic uptime base
+            dispatchFrame(frameTimeNanos / NANOS_PER_MS);
+        }
+    }
+
+    /**
+     * Frame source for devices without a Choreographer, posting a message to itself every
+     * {@link ValueAnimator#getFrameDelay()} milliseconds.
+     */
+    private static class HandlerFrameSource extends AnimationFrameSource {
+        private static final int ANIMATION_FRAME = 1;
+
+        private final Handler mHandler;
+        private long mLastFrameTime = -1;
+
+        HandlerFrameSource(Callback callback) {
+            super(callback);
+            mHandler = new Handler() {
+                @Override
+                public void handleMessage(Message msg) {
+                    if (msg.what == ANIMATION_FRAME) {
+                        mLastFrameTime = AnimationUtils.currentAnimationTimeMillis();
+                        dispatchFrame(mLastFrameTime);
+                    }
+                }
+            };
+        }
+
+        @Override
+        void postFrame() {
+            postFrameDelayed(0);
+        }
+
+        @Override
+        void postFrameDelayed(long delayMillis) {
+            long delay = delayMillis;
+            if (mLastFrameTime >= 0) {
+                long elapsed = AnimationUtils.currentAnimationTimeMillis() - mLastFrameTime;
+                delay = Math.max(delay, ValueAnimator.getFrameDelay() - elapsed);
+            }
+            mHandler.sendEmptyMessageDelayed(ANIMATION_FRAME, delay);
+        }
+
+        @Override
+        void removeFrame() {
+            mHandler.removeMessages(ANIMATION_FRAME);
+        }
+    }
+}
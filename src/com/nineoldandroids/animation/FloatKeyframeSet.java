@@ -8,13 +8,45 @@ import com.nineoldandroids.animation.Keyframe.FloatKeyframe;
 import java.util.ArrayList;
 
 class FloatKeyframeSet extends KeyframeSet {
-    private float firstValue;
-    private float lastValue;
-    private float deltaValue;
-    private boolean firstTime = true;
+    // the keyframes, stored as parallel arrays and only turned into Keyframe objects when
+    // getKeyframes() is called
+    private float[] mFractions;
+    private float[] mValues;
+    // null when every keyframe has a value, otherwise set for the ones to read from the target
+    private boolean[] mMissingValues;
+    // null when no keyframe has an interpolator
+    private /*Time*/Interpolator[] mInterpolators;
 
     public FloatKeyframeSet(FloatKeyframe... keyframes) {
-        super(keyframes);
+        super(keyframes.length);
+        int numKeyframes = keyframes.length;
+        mFractions = new float[numKeyframes];
+        mValues = new float[numKeyframes];
+        for (int i = 0; i < numKeyframes; ++i) {
+            FloatKeyframe keyframe = keyframes[i];
+            mFractions[i] = keyframe.getFraction();
+            if (keyframe.hasValue()) {
+                mValues[i] = keyframe.getFloatValue();
+            } else {
+                if (mMissingValues == null) {
+                    mMissingValues = new boolean[numKeyframes];
+                }
+                mMissingValues[i] = true;
+            }
+            setInterpolator(i, keyframe.getInterpolator());
+        }
+    }
+
+    /**
+     * Creates a set from packed keyframes without interpolators, taking ownership of the arrays.
+     *
+     * @param missingValues Flags for the keyframes whose value is read from the target, or null.
+     */
+    FloatKeyframeSet(float[] fractions, float[] values, boolean[] missingValues) {
+        super(fractions.length);
+        mFractions = fractions;
+        mValues = values;
+        mMissingValues = missingValues;
     }
 
     @Override
@@ -24,88 +56,158 @@ class FloatKeyframeSet extends KeyframeSet {
 
     @Override
     public FloatKeyframeSet clone() {
-        ArrayList<Keyframe> keyframes = mKeyframes;
-        int numKeyframes = mKeyframes.size();
-        FloatKeyframe[] newKeyframes = new FloatKeyframe[numKeyframes];
-        for (int i = 0; i < numKeyframes; ++i) {
-            newKeyframes[i] = (FloatKeyframe) keyframes.get(i).clone();
+        FloatKeyframeSet newSet = new FloatKeyframeSet(mFractions.clone(), mValues.clone(),
+                mMissingValues == null ? null : mMissingValues.clone());
+        if (mInterpolators != null) {
+            newSet.mInterpolators = mInterpolators.clone();
         }
-        FloatKeyframeSet newSet = new FloatKeyframeSet(newKeyframes);
         return newSet;
     }
 
-    public float getFloatValue(float fraction) {
-        if (mNumKeyframes == 2) {
-            if (firstTime) {
-                firstTime = false;
-                firstValue = ((FloatKeyframe) mKeyframes.get(0)).getFloatValue();
-                lastValue = ((FloatKeyframe) mKeyframes.get(1)).getFloatValue();
-                deltaValue = lastValue - firstValue;
+    @Override
+    ArrayList<Keyframe> getKeyframes() {
+        if (mKeyframes == null) {
+            ArrayList<Keyframe> keyframes = new ArrayList<Keyframe>(mNumKeyframes);
+            for (int i = 0; i < mNumKeyframes; ++i) {
+                keyframes.add(new PackedKeyframe(i));
             }
-            if (mInterpolator != null) {
-                fraction = mInterpolator.getInterpolation(fraction);
+            mKeyframes = keyframes;
+        }
+        return mKeyframes;
+    }
+
+    @Override
+    float getKeyframeFraction(int index) {
+        return mFractions[index];
+    }
+
+    @Override
+    boolean hasKeyframeValue(int index) {
+        return mMissingValues == null || !mMissingValues[index];
+    }
+
+    @Override
+    Object getKeyframeValue(int index) {
+        return mValues[index];
+    }
+
+    @Override
+    void setKeyframeValue(int index, Object value) {
+        if (value != null && value.getClass() == Float.class) {
+            mValues[index] = ((Float)value).floatValue();
+            if (mMissingValues != null) {
+                mMissingValues[index] = false;
+            }
+        }
+    }
+
+    private void setInterpolator(int index, /*Time*/Interpolator interpolator) {
+        if (interpolator != null && mInterpolators == null) {
+            mInterpolators = new /*Time*/Interpolator[mNumKeyframes];
+        }
+        if (mInterpolators != null) {
+            mInterpolators[index] = interpolator;
+        }
+    }
+
+    public float getFloatValue(float fraction) {
+        final float[] fractions = mFractions;
+        final float[] values = mValues;
+        final int numKeyframes = mNumKeyframes;
+        final /*Time*/Interpolator[] interpolators = mInterpolators;
+        if (numKeyframes == 2) {
+            if (interpolators != null && interpolators[1] != null) {
+                fraction = interpolators[1].getInterpolation(fraction);
             }
             if (mEvaluator == null) {
-                return firstValue + fraction * deltaValue;
+                return values[0] + fraction * (values[1] - values[0]);
             } else {
-                return ((Number)mEvaluator.evaluate(fraction, firstValue, lastValue)).floatValue();
+                return ((Number)mEvaluator.evaluate(fraction, values[0], values[1])).floatValue();
             }
         }
+        int next;
         if (fraction <= 0f) {
-            final FloatKeyframe prevKeyframe = (FloatKeyframe) mKeyframes.get(0);
-            final FloatKeyframe nextKeyframe = (FloatKeyframe) mKeyframes.get(1);
-            float prevValue = prevKeyframe.getFloatValue();
-            float nextValue = nextKeyframe.getFloatValue();
-            float prevFraction = prevKeyframe.getFraction();
-            float nextFraction = nextKeyframe.getFraction();
-            final /*Time*/Interpolator interpolator = nextKeyframe.getInterpolator();
-            if (interpolator != null) {
-                fraction = interpolator.getInterpolation(fraction);
-            }
-            float intervalFraction = (fraction - prevFraction) / (nextFraction - prevFraction);
-            return mEvaluator == null ?
-                    prevValue + intervalFraction * (nextValue - prevValue) :
-                    ((Number)mEvaluator.evaluate(intervalFraction, prevValue, nextValue)).
-                            floatValue();
+            next = 1;
         } else if (fraction >= 1f) {
-            final FloatKeyframe prevKeyframe = (FloatKeyframe) mKeyframes.get(mNumKeyframes - 2);
-            final FloatKeyframe nextKeyframe = (FloatKeyframe) mKeyframes.get(mNumKeyframes - 1);
-            float prevValue = prevKeyframe.getFloatValue();
-            float nextValue = nextKeyframe.getFloatValue();
-            float prevFraction = prevKeyframe.getFraction();
-            float nextFraction = nextKeyframe.getFraction();
-            final /*Time*/Interpolator interpolator = nextKeyframe.getInterpolator();
-            if (interpolator != null) {
-                fraction = interpolator.getInterpolation(fraction);
+            next = numKeyframes - 1;
+        } else {
+            next = findNextKeyframe(fraction);
+            if (next == numKeyframes) {
+                // shouldn't get here
+                return values[numKeyframes - 1];
             }
-            float intervalFraction = (fraction - prevFraction) / (nextFraction - prevFraction);
-            return mEvaluator == null ?
-                    prevValue + intervalFraction * (nextValue - prevValue) :
-                    ((Number)mEvaluator.evaluate(intervalFraction, prevValue, nextValue)).
-                            floatValue();
-        }
-        FloatKeyframe prevKeyframe = (FloatKeyframe) mKeyframes.get(0);
-        for (int i = 1; i < mNumKeyframes; ++i) {
-            FloatKeyframe nextKeyframe = (FloatKeyframe) mKeyframes.get(i);
-            if (fraction < nextKeyframe.getFraction()) {
-                final /*Time*/Interpolator interpolator = nextKeyframe.getInterpolator();
-                if (interpolator != null) {
-                    fraction = interpolator.getInterpolation(fraction);
-                }
-                float intervalFraction = (fraction - prevKeyframe.getFraction()) /
-                    (nextKeyframe.getFraction() - prevKeyframe.getFraction());
-                float prevValue = prevKeyframe.getFloatValue();
-                float nextValue = nextKeyframe.getFloatValue();
-                return mEvaluator == null ?
-                        prevValue + intervalFraction * (nextValue - prevValue) :
-                        ((Number)mEvaluator.evaluate(intervalFraction, prevValue, nextValue)).
-                            floatValue();
-            }
-            prevKeyframe = nextKeyframe;
         }
-        // shouldn't get here
-        return ((Number)mKeyframes.get(mNumKeyframes - 1).getValue()).floatValue();
+        if (interpolators != null && interpolators[next] != null) {
+            fraction = interpolators[next].getInterpolation(fraction);
+        }
+        float prevFraction = fractions[next - 1];
+        float intervalFraction = (fraction - prevFraction) / (fractions[next] - prevFraction);
+        float prevValue = values[next - 1];
+        float nextValue = values[next];
+        return mEvaluator == null ?
+                prevValue + intervalFraction * (nextValue - prevValue) :
+                ((Number)mEvaluator.evaluate(intervalFraction, prevValue, nextValue)).
+                        floatValue();
     }
 
-}
+    /**
+     * Keyframe reading and writing the packed arrays of the set, so changes made to the keyframes
+     * returned by getKeyframes() apply to the set.
+     */
+    private class PackedKeyframe extends FloatKeyframe {
+        private final int mIndex;
 
+        PackedKeyframe(int index) {
+            super(mFractions[index]);
+            mIndex = index;
+        }
+
+        @Override
+        public boolean hasValue() {
+            return hasKeyframeValue(mIndex);
+        }
+
+        @Override
+        public float getFloatValue() {
+            return mValues[mIndex];
+        }
+
+        @Override
+        public Object getValue() {
+            return mValues[mIndex];
+        }
+
+        @Override
+        public void setValue(Object value) {
+            setKeyframeValue(mIndex, value);
+        }
+
+        @Override
+        public float getFraction() {
+            return mFractions[mIndex];
+        }
+
+        @Override
+        public void setFraction(float fraction) {
+            mFractions[mIndex] = fraction;
+        }
+
+        @Override
+        public /*Time*/Interpolator getInterpolator() {
+            return mInterpolators == null ? null : mInterpolators[mIndex];
+        }
+
+        @Override
+        public void setInterpolator(/*Time*/Interpolator interpolator) {
+            FloatKeyframeSet.this.setInterpolator(mIndex, interpolator);
+        }
+
+        @Override
+        public FloatKeyframe clone() {
+            FloatKeyframe kfClone = hasValue() ? new FloatKeyframe(getFraction(), getFloatValue()) :
+                    new FloatKeyframe(getFraction());
+            kfClone.setInterpolator(getInterpolator());
+            return kfClone;
+        }
+    }
+}
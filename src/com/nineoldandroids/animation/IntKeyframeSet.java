@@ -33,13 +33,45 @@ import java.util.ArrayList;
  * Object equivalents of these primitive types.</p>
  */
 class IntKeyframeSet extends KeyframeSet {
-    private int firstValue;
-    private int lastValue;
-    private int deltaValue;
-    private boolean firstTime = true;
+    // the keyframes, stored as parallel arrays and only turned into Keyframe objects when
+    // getKeyframes() is called
+    private float[] mFractions;
+    private int[] mValues;
+    // null when every keyframe has a value, otherwise set for the ones to read from the target
+    private boolean[] mMissingValues;
+    // null when no keyframe has an interpolator
+    private /*Time*/Interpolator[] mInterpolators;
 
     public IntKeyframeSet(IntKeyframe... keyframes) {
-        super(keyframes);
+        super(keyframes.length);
+        int numKeyframes = keyframes.length;
+        mFractions = new float[numKeyframes];
+        mValues = new int[numKeyframes];
+        for (int i = 0; i < numKeyframes; ++i) {
+            IntKeyframe keyframe = keyframes[i];
+            mFractions[i] = keyframe.getFraction();
+            if (keyframe.hasValue()) {
+                mValues[i] = keyframe.getIntValue();
+            } else {
+                if (mMissingValues == null) {
+                    mMissingValues = new boolean[numKeyframes];
+                }
+                mMissingValues[i] = true;
+            }
+            setInterpolator(i, keyframe.getInterpolator());
+        }
+    }
+
+    /**
+     * Creates a set from packed keyframes without interpolators, taking ownership of the arrays.
+     *
+     * @param missingValues Flags for the keyframes whose value is read from the target, or null.
+     */
+    IntKeyframeSet(float[] fractions, int[] values, boolean[] missingValues) {
+        super(fractions.length);
+        mFractions = fractions;
+        mValues = values;
+        mMissingValues = missingValues;
     }
 
     @Override
@@ -49,87 +81,158 @@ class IntKeyframeSet extends KeyframeSet {
 
     @Override
     public IntKeyframeSet clone() {
-        ArrayList<Keyframe> keyframes = mKeyframes;
-        int numKeyframes = mKeyframes.size();
-        IntKeyframe[] newKeyframes = new IntKeyframe[numKeyframes];
-        for (int i = 0; i < numKeyframes; ++i) {
-            newKeyframes[i] = (IntKeyframe) keyframes.get(i).clone();
+        IntKeyframeSet newSet = new IntKeyframeSet(mFractions.clone(), mValues.clone(),
+                mMissingValues == null ? null : mMissingValues.clone());
+        if (mInterpolators != null) {
+            newSet.mInterpolators = mInterpolators.clone();
         }
-        IntKeyframeSet newSet = new IntKeyframeSet(newKeyframes);
         return newSet;
     }
 
-    public int getIntValue(float fraction) {
-        if (mNumKeyframes == 2) {
-            if (firstTime) {
-                firstTime = false;
-                firstValue = ((IntKeyframe) mKeyframes.get(0)).getIntValue();
-                lastValue = ((IntKeyframe) mKeyframes.get(1)).getIntValue();
-                deltaValue = lastValue - firstValue;
+    @Override
+    ArrayList<Keyframe> getKeyframes() {
+        if (mKeyframes == null) {
+            ArrayList<Keyframe> keyframes = new ArrayList<Keyframe>(mNumKeyframes);
+            for (int i = 0; i < mNumKeyframes; ++i) {
+                keyframes.add(new PackedKeyframe(i));
             }
-            if (mInterpolator != null) {
-                fraction = mInterpolator.getInterpolation(fraction);
+            mKeyframes = keyframes;
+        }
+        return mKeyframes;
+    }
+
+    @Override
+    float getKeyframeFraction(int index) {
+        return mFractions[index];
+    }
+
+    @Override
+    boolean hasKeyframeValue(int index) {
+        return mMissingValues == null || !mMissingValues[index];
+    }
+
+    @Override
+    Object getKeyframeValue(int index) {
+        return mValues[index];
+    }
+
+    @Override
+    void setKeyframeValue(int index, Object value) {
+        if (value != null && value.getClass() == Integer.class) {
+            mValues[index] = ((Integer)value).intValue();
+            if (mMissingValues != null) {
+                mMissingValues[index] = false;
+            }
+        }
+    }
+
+    private void setInterpolator(int index, /*Time*/Interpolator interpolator) {
+        if (interpolator != null && mInterpolators == null) {
+            mInterpolators = new /*Time*/Interpolator[mNumKeyframes];
+        }
+        if (mInterpolators != null) {
+            mInterpolators[index] = interpolator;
+        }
+    }
+
+    public int getIntValue(float fraction) {
+        final float[] fractions = mFractions;
+        final int[] values = mValues;
+        final int numKeyframes = mNumKeyframes;
+        final /*Time*/Interpolator[] interpolators = mInterpolators;
+        if (numKeyframes == 2) {
+            if (interpolators != null && interpolators[1] != null) {
+                fraction = interpolators[1].getInterpolation(fraction);
             }
             if (mEvaluator == null) {
-                return firstValue + (int)(fraction * deltaValue);
+                return values[0] + (int)(fraction * (values[1] - values[0]));
             } else {
-                return ((Number)mEvaluator.evaluate(fraction, firstValue, lastValue)).intValue();
+                return ((Number)mEvaluator.evaluate(fraction, values[0], values[1])).intValue();
             }
         }
+        int next;
         if (fraction <= 0f) {
-            final IntKeyframe prevKeyframe = (IntKeyframe) mKeyframes.get(0);
-            final IntKeyframe nextKeyframe = (IntKeyframe) mKeyframes.get(1);
-            int prevValue = prevKeyframe.getIntValue();
-            int nextValue = nextKeyframe.getIntValue();
-            float prevFraction = prevKeyframe.getFraction();
-            float nextFraction = nextKeyframe.getFraction();
-            final /*Time*/Interpolator interpolator = nextKeyframe.getInterpolator();
-            if (interpolator != null) {
-                fraction = interpolator.getInterpolation(fraction);
-            }
-            float intervalFraction = (fraction - prevFraction) / (nextFraction - prevFraction);
-            return mEvaluator == null ?
-                    prevValue + (int)(intervalFraction * (nextValue - prevValue)) :
-                    ((Number)mEvaluator.evaluate(intervalFraction, prevValue, nextValue)).
-                            intValue();
+            next = 1;
         } else if (fraction >= 1f) {
-            final IntKeyframe prevKeyframe = (IntKeyframe) mKeyframes.get(mNumKeyframes - 2);
-            final IntKeyframe nextKeyframe = (IntKeyframe) mKeyframes.get(mNumKeyframes - 1);
-            int prevValue = prevKeyframe.getIntValue();
-            int nextValue = nextKeyframe.getIntValue();
-            float prevFraction = prevKeyframe.getFraction();
-            float nextFraction = nextKeyframe.getFraction();
-            final /*Time*/Interpolator interpolator = nextKeyframe.getInterpolator();
-            if (interpolator != null) {
-                fraction = interpolator.getInterpolation(fraction);
+            next = numKeyframes - 1;
+        } else {
+            next = findNextKeyframe(fraction);
+            if (next == numKeyframes) {
+                // shouldn't get here
+                return values[numKeyframes - 1];
             }
-            float intervalFraction = (fraction - prevFraction) / (nextFraction - prevFraction);
-            return mEvaluator == null ?
-                    prevValue + (int)(intervalFraction * (nextValue - prevValue)) :
-                    ((Number)mEvaluator.evaluate(intervalFraction, prevValue, nextValue)).intValue();
-        }
-        IntKeyframe prevKeyframe = (IntKeyframe) mKeyframes.get(0);
-        for (int i = 1; i < mNumKeyframes; ++i) {
-            IntKeyframe nextKeyframe = (IntKeyframe) mKeyframes.get(i);
-            if (fraction < nextKeyframe.getFraction()) {
-                final /*Time*/Interpolator interpolator = nextKeyframe.getInterpolator();
-                if (interpolator != null) {
-                    fraction = interpolator.getInterpolation(fraction);
-                }
-                float intervalFraction = (fraction - prevKeyframe.getFraction()) /
-                    (nextKeyframe.getFraction() - prevKeyframe.getFraction());
-                int prevValue = prevKeyframe.getIntValue();
-                int nextValue = nextKeyframe.getIntValue();
-                return mEvaluator == null ?
-                        prevValue + (int)(intervalFraction * (nextValue - prevValue)) :
-                        ((Number)mEvaluator.evaluate(intervalFraction, prevValue, nextValue)).
-                                intValue();
-            }
-            prevKeyframe = nextKeyframe;
         }
-        // shouldn't get here
-        return ((Number)mKeyframes.get(mNumKeyframes - 1).getValue()).intValue();
+        if (interpolators != null && interpolators[next] != null) {
+            fraction = interpolators[next].getInterpolation(fraction);
+        }
+        float prevFraction = fractions[next - 1];
+        float intervalFraction = (fraction - prevFraction) / (fractions[next] - prevFraction);
+        int prevValue = values[next - 1];
+        int nextValue = values[next];
+        return mEvaluator == null ?
+                prevValue + (int)(intervalFraction * (nextValue - prevValue)) :
+                ((Number)mEvaluator.evaluate(intervalFraction, prevValue, nextValue)).
+                        intValue();
     }
 
-}
+    /**
+     * Keyframe reading and writing the packed arrays of the set, so changes made to the keyframes
+     * returned by getKeyframes() apply to the set.
+     */
+    private class PackedKeyframe extends IntKeyframe {
+        private final int mIndex;
 
+        PackedKeyframe(int index) {
+            super(mFractions[index]);
+            mIndex = index;
+        }
+
+        @Override
+        public boolean hasValue() {
+            return hasKeyframeValue(mIndex);
+        }
+
+        @Override
+        public int getIntValue() {
+            return mValues[mIndex];
+        }
+
+        @Override
+        public Object getValue() {
+            return mValues[mIndex];
+        }
+
+        @Override
+        public void setValue(Object value) {
+            setKeyframeValue(mIndex, value);
+        }
+
+        @Override
+        public float getFraction() {
+            return mFractions[mIndex];
+        }
+
+        @Override
+        public void setFraction(float fraction) {
+            mFractions[mIndex] = fraction;
+        }
+
+        @Override
+        public /*Time*/Interpolator getInterpolator() {
+            return mInterpolators == null ? null : mInterpolators[mIndex];
+        }
+
+        @Override
+        public void setInterpolator(/*Time*/Interpolator interpolator) {
+            IntKeyframeSet.this.setInterpolator(mIndex, interpolator);
+        }
+
+        @Override
+        public IntKeyframe clone() {
+            IntKeyframe kfClone = hasValue() ? new IntKeyframe(getFraction(), getIntValue()) :
+                    new IntKeyframe(getFraction());
+            kfClone.setInterpolator(getInterpolator());
+            return kfClone;
+        }
+    }
+}
@@ -17,9 +17,11 @@ class KeyframeSet {
     Keyframe mFirstKeyframe;
     Keyframe mLastKeyframe;
     /*Time*/Interpolator mInterpolator; // only used in the 2-keyframe case
-    ArrayList<Keyframe> mKeyframes; // only used when there are not 2 keyframes
+    ArrayList<Keyframe> mKeyframes; // created on demand by the subclasses storing packed keyframes
     TypeEvaluator mEvaluator;
 
+    // index of the keyframe ending the interval found by the last findNextKeyframe() call
+    private int mLastInterval = 1;
 
     public KeyframeSet(Keyframe... keyframes) {
         mNumKeyframes = keyframes.length;
@@ -30,34 +32,54 @@ class KeyframeSet {
         mInterpolator = mLastKeyframe.getInterpolator();
     }
 
+    /**
+     * Constructor for the subclasses storing their keyframes in their own form, which override
+     * the keyframe accessors of this class.
+     */
+    KeyframeSet(int numKeyframes) {
+        mNumKeyframes = numKeyframes;
+    }
+
     public static KeyframeSet ofInt(int... values) {
         int numKeyframes = values.length;
-        IntKeyframe keyframes[] = new IntKeyframe[Math.max(numKeyframes,2)];
+        float fractions[] = new float[Math.max(numKeyframes,2)];
+        int keyframeValues[] = new int[fractions.length];
+        boolean missingValues[] = null;
         if (numKeyframes == 1) {
-            keyframes[0] = (IntKeyframe) Keyframe.ofInt(0f);
-            keyframes[1] = (IntKeyframe) Keyframe.ofInt(1f, values[0]);
+            // the start value is read from the target
+            missingValues = new boolean[2];
+            missingValues[0] = true;
+            fractions[1] = 1f;
+            keyframeValues[1] = values[0];
         } else {
-            keyframes[0] = (IntKeyframe) Keyframe.ofInt(0f, values[0]);
+            keyframeValues[0] = values[0];
             for (int i = 1; i < numKeyframes; ++i) {
-                keyframes[i] = (IntKeyframe) Keyframe.ofInt((float) i / (numKeyframes - 1), values[i]);
+                fractions[i] = (float) i / (numKeyframes - 1);
+                keyframeValues[i] = values[i];
             }
         }
-        return new IntKeyframeSet(keyframes);
+        return new IntKeyframeSet(fractions, keyframeValues, missingValues);
     }
 
     public static KeyframeSet ofFloat(float... values) {
         int numKeyframes = values.length;
-        FloatKeyframe keyframes[] = new FloatKeyframe[Math.max(numKeyframes,2)];
+        float fractions[] = new float[Math.max(numKeyframes,2)];
+        float keyframeValues[] = new float[fractions.length];
+        boolean missingValues[] = null;
         if (numKeyframes == 1) {
-            keyframes[0] = (FloatKeyframe) Keyframe.ofFloat(0f);
-            keyframes[1] = (FloatKeyframe) Keyframe.ofFloat(1f, values[0]);
+            // the start value is read from the target
+            missingValues = new boolean[2];
+            missingValues[0] = true;
+            fractions[1] = 1f;
+            keyframeValues[1] = values[0];
         } else {
-            keyframes[0] = (FloatKeyframe) Keyframe.ofFloat(0f, values[0]);
+            keyframeValues[0] = values[0];
             for (int i = 1; i < numKeyframes; ++i) {
-                keyframes[i] = (FloatKeyframe) Keyframe.ofFloat((float) i / (numKeyframes - 1), values[i]);
+                fractions[i] = (float) i / (numKeyframes - 1);
+                keyframeValues[i] = values[i];
             }
         }
-        return new FloatKeyframeSet(keyframes);
+        return new FloatKeyframeSet(fractions, keyframeValues, missingValues);
     }
 
     public static KeyframeSet ofKeyframe(Keyframe... keyframes) {
@@ -119,6 +141,32 @@ class KeyframeSet {
         mEvaluator = evaluator;
     }
 
+    /**
+     * Returns the keyframes of the set.
+     */
+    ArrayList<Keyframe> getKeyframes() {
+        return mKeyframes;
+    }
+
+    float getKeyframeFraction(int index) {
+        return mKeyframes.get(index).getFraction();
+    }
+
+    boolean hasKeyframeValue(int index) {
+        return mKeyframes.get(index).hasValue();
+    }
+
+    Object getKeyframeValue(int index) {
+        return mKeyframes.get(index).getValue();
+    }
+
+    /**
+     * Sets the value of a keyframe, ignored if it is not of the type of the keyframe.
+     */
+    void setKeyframeValue(int index, Object value) {
+        mKeyframes.get(index).setValue(value);
+    }
+
     @Override
     public KeyframeSet clone() {
         ArrayList<Keyframe> keyframes = mKeyframes;
@@ -176,31 +224,95 @@ class KeyframeSet {
             return mEvaluator.evaluate(intervalFraction, prevKeyframe.getValue(),
                     mLastKeyframe.getValue());
         }
-        Keyframe prevKeyframe = mFirstKeyframe;
-        for (int i = 1; i < mNumKeyframes; ++i) {
-            Keyframe nextKeyframe = mKeyframes.get(i);
-            if (fraction < nextKeyframe.getFraction()) {
-                final /*Time*/Interpolator interpolator = nextKeyframe.getInterpolator();
-                if (interpolator != null) {
-                    fraction = interpolator.getInterpolation(fraction);
-                }
-                final float prevFraction = prevKeyframe.getFraction();
-                float intervalFraction = (fraction - prevFraction) /
-                    (nextKeyframe.getFraction() - prevFraction);
-                return mEvaluator.evaluate(intervalFraction, prevKeyframe.getValue(),
-                        nextKeyframe.getValue());
+        int next = findNextKeyframe(fraction);
+        if (next < mNumKeyframes) {
+            final Keyframe prevKeyframe = mKeyframes.get(next - 1);
+            final Keyframe nextKeyframe = mKeyframes.get(next);
+            final /*Time*/Interpolator interpolator = nextKeyframe.getInterpolator();
+            if (interpolator != null) {
+                fraction = interpolator.getInterpolation(fraction);
             }
-            prevKeyframe = nextKeyframe;
+            final float prevFraction = prevKeyframe.getFraction();
+            float intervalFraction = (fraction - prevFraction) /
+                (nextKeyframe.getFraction() - prevFraction);
+            return mEvaluator.evaluate(intervalFraction, prevKeyframe.getValue(),
+                    nextKeyframe.getValue());
         }
         // shouldn't reach here
         return mLastKeyframe.getValue();
     }
 
+    /**
+     * Returns the index of the first keyframe after the first one whose fraction is greater than
+     * the given fraction, which ends the interval the fraction falls in, or the number of
+     * keyframes if the fraction is past all of them. The fractions of the keyframes are expected
+     * to be in increasing order.
+     *
+     * <p>The fraction usually moves forward a little on each frame, so the search gallops from
+     * the interval of the previous call: it probes the keyframes 1, 2, 4, 8... past it, in the
+     * direction the fraction moved, and then binary searches the last gap. The lookup costs the
+     * same whatever the number of keyframes as long as frames do not skip keyframes, and grows
+     * with the logarithm of the number of keyframes skipped otherwise.</p>
+     */
+    final int findNextKeyframe(float fraction) {
+        final int numKeyframes = mNumKeyframes;
+        final int next = mLastInterval;
+        // the result is in [low, high]
+        int low;
+        int high;
+        if (fraction < getKeyframeFraction(next)) {
+            if (next == 1 || fraction >= getKeyframeFraction(next - 1)) {
+                return next;
+            }
+            // moved backward
+            low = 1;
+            high = next - 1;
+            for (int step = 1; ; step <<= 1) {
+                int probe = high - step;
+                if (probe < 1) {
+                    break;
+                }
+                if (fraction >= getKeyframeFraction(probe)) {
+                    low = probe + 1;
+                    break;
+                }
+                high = probe;
+            }
+        } else {
+            // moved forward
+            low = next + 1;
+            high = numKeyframes;
+            for (int step = 1; ; step <<= 1) {
+                int probe = low + step - 1;
+                if (probe >= numKeyframes) {
+                    break;
+                }
+                if (fraction < getKeyframeFraction(probe)) {
+                    high = probe;
+                    break;
+                }
+                low = probe + 1;
+            }
+        }
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (fraction < getKeyframeFraction(mid)) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        if (low < numKeyframes) {
+            mLastInterval = low;
+        }
+        return low;
+    }
+
     @Override
     public String toString() {
         String returnVal = " ";
         for (int i = 0; i < mNumKeyframes; ++i) {
-            returnVal += mKeyframes.get(i).getValue() + "  ";
+            returnVal += getKeyframeValue(i) + "  ";
         }
         return returnVal;
     }
@@ -1,35 +1,38 @@
 
 package com.nineoldandroids.animation;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
-
 import android.util.Log;
 import android.view.View;
 
 import com.nineoldandroids.util.Property;
+import com.nineoldandroids.util.PropertyRegistry;
 import com.nineoldandroids.view.animation.AnimatorProxy;
 
 public final class ObjectAnimator extends ValueAnimator {
     private static final boolean DBG = false;
-    private static final Map<String, Property> PROXY_PROPERTIES = new HashMap<String, Property>();
 
     static {
-        PROXY_PROPERTIES.put("alpha", PreHoneycombCompat.ALPHA);
-        PROXY_PROPERTIES.put("pivotX", PreHoneycombCompat.PIVOT_X);
-        PROXY_PROPERTIES.put("pivotY", PreHoneycombCompat.PIVOT_Y);
-        PROXY_PROPERTIES.put("translationX", PreHoneycombCompat.TRANSLATION_X);
-        PROXY_PROPERTIES.put("translationY", PreHoneycombCompat.TRANSLATION_Y);
-        PROXY_PROPERTIES.put("rotation", PreHoneycombCompat.ROTATION);
-        PROXY_PROPERTIES.put("rotationX", PreHoneycombCompat.ROTATION_X);
-        PROXY_PROPERTIES.put("rotationY", PreHoneycombCompat.ROTATION_Y);
-        PROXY_PROPERTIES.put("scaleX", PreHoneycombCompat.SCALE_X);
-        PROXY_PROPERTIES.put("scaleY", PreHoneycombCompat.SCALE_Y);
-        PROXY_PROPERTIES.put("scrollX", PreHoneycombCompat.SCROLL_X);
-        PROXY_PROPERTIES.put("scrollY", PreHoneycombCompat.SCROLL_Y);
-        PROXY_PROPERTIES.put("x", PreHoneycombCompat.X);
-        PROXY_PROPERTIES.put("y", PreHoneycombCompat.Y);
+        // Views animated by property name use typed properties instead of reflection, going
+        // through AnimatorProxy on the platforms without native view properties
+        final boolean proxy = AnimatorProxy.NEEDS_PROXY;
+        registerViewProperty(proxy ? PreHoneycombCompat.ALPHA : HoneycombCompat.ALPHA);
+        registerViewProperty(proxy ? PreHoneycombCompat.PIVOT_X : HoneycombCompat.PIVOT_X);
+        registerViewProperty(proxy ? PreHoneycombCompat.PIVOT_Y : HoneycombCompat.PIVOT_Y);
+        registerViewProperty(proxy ? PreHoneycombCompat.TRANSLATION_X : HoneycombCompat.TRANSLATION_X);
+        registerViewProperty(proxy ? PreHoneycombCompat.TRANSLATION_Y : HoneycombCompat.TRANSLATION_Y);
+        registerViewProperty(proxy ? PreHoneycombCompat.ROTATION : HoneycombCompat.ROTATION);
+        registerViewProperty(proxy ? PreHoneycombCompat.ROTATION_X : HoneycombCompat.ROTATION_X);
+        registerViewProperty(proxy ? PreHoneycombCompat.ROTATION_Y : HoneycombCompat.ROTATION_Y);
+        registerViewProperty(proxy ? PreHoneycombCompat.SCALE_X : HoneycombCompat.SCALE_X);
+        registerViewProperty(proxy ? PreHoneycombCompat.SCALE_Y : HoneycombCompat.SCALE_Y);
+        registerViewProperty(proxy ? PreHoneycombCompat.SCROLL_X : HoneycombCompat.SCROLL_X);
+        registerViewProperty(proxy ? PreHoneycombCompat.SCROLL_Y : HoneycombCompat.SCROLL_Y);
+        registerViewProperty(proxy ? PreHoneycombCompat.X : HoneycombCompat.X);
+        registerViewProperty(proxy ? PreHoneycombCompat.Y : HoneycombCompat.Y);
+    }
+
+    private static void registerViewProperty(Property<View, ?> property) {
+        PropertyRegistry.register(View.class, property);
     }
 
     // The target object on which the property exists, set in the constructor
@@ -195,10 +198,10 @@ public final class ObjectAnimator extends ValueAnimator {
             Log.d("ObjectAnimator", "Anim target, duration: " + mTarget + ", " + getDuration());
             for (int i = 0; i < mValues.length; ++i) {
                 PropertyValuesHolder pvh = mValues[i];
-                ArrayList<Keyframe> keyframes = pvh.mKeyframeSet.mKeyframes;
+                KeyframeSet keyframes = pvh.mKeyframeSet;
                 Log.d("ObjectAnimator", "   Values[" + i + "]: " +
-                    pvh.getPropertyName() + ", " + keyframes.get(0).getValue() + ", " +
-                    keyframes.get(pvh.mKeyframeSet.mNumKeyframes - 1).getValue());
+                    pvh.getPropertyName() + ", " + keyframes.getKeyframeValue(0) + ", " +
+                    keyframes.getKeyframeValue(keyframes.mNumKeyframes - 1));
             }
         }
         super.start();
@@ -209,9 +212,6 @@ public final class ObjectAnimator extends ValueAnimator {
         if (!mInitialized) {
             // mValueType may change due to setter/getter setup; do this before calling super.init(),
             // which uses mValueType to set up the default type evaluator.
-            if ((mProperty == null) && AnimatorProxy.NEEDS_PROXY && (mTarget instanceof View) && PROXY_PROPERTIES.containsKey(mPropertyName)) {
-                setProperty(PROXY_PROPERTIES.get(mPropertyName));
-            }
             int numValues = mValues.length;
             for (int i = 0; i < numValues; ++i) {
                 mValues[i].setupSetterAndGetter(mTarget);
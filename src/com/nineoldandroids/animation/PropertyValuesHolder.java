@@ -5,12 +5,12 @@ import android.util.Log;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.util.HashMap;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+import com.nineoldandroids.util.AccessorCache;
 import com.nineoldandroids.util.FloatProperty;
 import com.nineoldandroids.util.IntProperty;
 import com.nineoldandroids.util.Property;
+import com.nineoldandroids.util.PropertyRegistry;
 
 public class PropertyValuesHolder implements Cloneable {
 
@@ -48,18 +48,6 @@ public class PropertyValuesHolder implements Cloneable {
     private static Class[] DOUBLE_VARIANTS = {double.class, Double.class, float.class, int.class,
             Float.class, Integer.class};
 
-    // These maps hold all property entries for a particular class. This map
-    // is used to speed up property/setter/getter lookups for a given class/property
-    // combination. No need to use reflection on the combination more than once.
-    private static final HashMap<Class, HashMap<String, Method>> sSetterPropertyMap =
-            new HashMap<Class, HashMap<String, Method>>();
-    private static final HashMap<Class, HashMap<String, Method>> sGetterPropertyMap =
-            new HashMap<Class, HashMap<String, Method>>();
-
-    // This lock is used to ensure that only one thread is accessing the property maps
-    // at a time.
-    final ReentrantReadWriteLock mPropertyMapLock = new ReentrantReadWriteLock();
-
     // Used to pass single value to varargs parameter in setter invocation
     final Object[] mTmpValueArray = new Object[1];
 
@@ -185,150 +173,89 @@ public class PropertyValuesHolder implements Cloneable {
     }
 
     private Method getPropertyFunction(Class targetClass, String prefix, Class valueType) {
-        // TODO: faster implementation...
-        Method returnVal = null;
         String methodName = getMethodName(prefix, mPropertyName);
-        Class args[] = null;
+        Method returnVal;
         if (valueType == null) {
-            try {
-                returnVal = targetClass.getMethod(methodName, args);
-            } catch (NoSuchMethodException e) {
-                /* The native implementation uses JNI to do reflection, which allows access to private methods.
-                 * getDeclaredMethod(..) does not find superclass methods, so it's implemented as a fallback.
-                 */
-                try {
-                    returnVal = targetClass.getDeclaredMethod(methodName, args);
-                    returnVal.setAccessible(true);
-                } catch (NoSuchMethodException e2) {
-                    Log.e("PropertyValuesHolder",
-                            "Couldn't find no-arg method for property " + mPropertyName + ": " + e);
-                }
+            returnVal = AccessorCache.findMethod(targetClass, methodName, null);
+            if (returnVal == null) {
+                Log.e("PropertyValuesHolder",
+                        "Couldn't find no-arg method for property " + mPropertyName);
             }
         } else {
-            args = new Class[1];
             Class typeVariants[];
-            if (mValueType.equals(Float.class)) {
+            if (valueType.equals(Float.class)) {
                 typeVariants = FLOAT_VARIANTS;
-            } else if (mValueType.equals(Integer.class)) {
+            } else if (valueType.equals(Integer.class)) {
                 typeVariants = INTEGER_VARIANTS;
-            } else if (mValueType.equals(Double.class)) {
+            } else if (valueType.equals(Double.class)) {
                 typeVariants = DOUBLE_VARIANTS;
             } else {
                 typeVariants = new Class[1];
-                typeVariants[0] = mValueType;
+                typeVariants[0] = valueType;
             }
-            for (Class typeVariant : typeVariants) {
-                args[0] = typeVariant;
-                try {
-                    returnVal = targetClass.getMethod(methodName, args);
-                    // change the value type to suit
-                    mValueType = typeVariant;
-                    return returnVal;
-                } catch (NoSuchMethodException e) {
-                    /* The native implementation uses JNI to do reflection, which allows access to private methods.
-                     * getDeclaredMethod(..) does not find superclass methods, so it's implemented as a fallback.
-                     */
-                    try {
-                        returnVal = targetClass.getDeclaredMethod(methodName, args);
-                        returnVal.setAccessible(true);
-                        // change the value type to suit
-                        mValueType = typeVariant;
-                        return returnVal;
-                    } catch (NoSuchMethodException e2) {
-                        // Swallow the error and keep trying other variants
-                    }
-                }
+            returnVal = AccessorCache.findMethod(targetClass, methodName, valueType, typeVariants);
+            if (returnVal != null) {
+                // change the value type to suit
+                mValueType = returnVal.getParameterTypes()[0];
+            } else {
+                Log.e("PropertyValuesHolder",
+                        "Couldn't find setter/getter for property " + mPropertyName +
+                                " with value type "+ mValueType);
             }
-            // If we got here, then no appropriate function was found
-            Log.e("PropertyValuesHolder",
-                    "Couldn't find setter/getter for property " + mPropertyName +
-                            " with value type "+ mValueType);
         }
-
         return returnVal;
     }
 
-
-    /**
-     * Returns the setter or getter requested. This utility function checks whether the
-     * requested method exists in the propertyMapMap cache. If not, it calls another
-     * utility function to request the Method from the targetClass directly.
-     * @param targetClass The Class on which the requested method should exist.
-     * @param propertyMapMap The cache of setters/getters derived so far.
-     * @param prefix "set" or "get", for the setter or getter.
-     * @param valueType The type of parameter passed into the method (null for getter).
-     * @return Method the method associated with mPropertyName.
-     */
-    private Method setupSetterOrGetter(Class targetClass,
-            HashMap<Class, HashMap<String, Method>> propertyMapMap,
-            String prefix, Class valueType) {
-        Method setterOrGetter = null;
-        try {
-            // Have to lock property map prior to reading it, to guard against
-            // another thread putting something in there after we've checked it
-            // but before we've added an entry to it
-            mPropertyMapLock.writeLock().lock();
-            HashMap<String, Method> propertyMap = propertyMapMap.get(targetClass);
-            if (propertyMap != null) {
-                setterOrGetter = propertyMap.get(mPropertyName);
-            }
-            if (setterOrGetter == null) {
-                setterOrGetter = getPropertyFunction(targetClass, prefix, valueType);
-                if (propertyMap == null) {
-                    propertyMap = new HashMap<String, Method>();
-                    propertyMapMap.put(targetClass, propertyMap);
-                }
-                propertyMap.put(mPropertyName, setterOrGetter);
-            }
-        } finally {
-            mPropertyMapLock.writeLock().unlock();
-        }
-        return setterOrGetter;
-    }
-
     /**
      * Utility function to get the setter from targetClass
      * @param targetClass The Class on which the requested method should exist.
      */
     void setupSetter(Class targetClass) {
-        mSetter = setupSetterOrGetter(targetClass, sSetterPropertyMap, "set", mValueType);
+        mSetter = getPropertyFunction(targetClass, "set", mValueType);
     }
 
     /**
      * Utility function to get the getter from targetClass
      */
     private void setupGetter(Class targetClass) {
-        mGetter = setupSetterOrGetter(targetClass, sGetterPropertyMap, "get", null);
+        mGetter = getPropertyFunction(targetClass, "get", null);
     }
 
     void setupSetterAndGetter(Object target) {
+        if (mProperty == null && mSetter == null) {
+            // prefer a typed property registered for the target over reflection
+            Property property = PropertyRegistry.find(target.getClass(), mPropertyName);
+            if (property != null && acceptsPropertyType(property.getType())) {
+                setProperty(property);
+            }
+        }
         if (mProperty != null) {
             // check to make sure that mProperty is on the class of target
             try {
                 Object testValue = mProperty.get(target);
-                for (Keyframe kf : mKeyframeSet.mKeyframes) {
-                    if (!kf.hasValue()) {
-                        kf.setValue(mProperty.get(target));
+                for (int i = 0; i < mKeyframeSet.mNumKeyframes; ++i) {
+                    if (!mKeyframeSet.hasKeyframeValue(i)) {
+                        mKeyframeSet.setKeyframeValue(i, mProperty.get(target));
                     }
                 }
                 return;
             } catch (ClassCastException e) {
                 Log.e("PropertyValuesHolder","No such property (" + mProperty.getName() +
                         ") on target object " + target + ". Trying reflection instead");
-                mProperty = null;
+                setProperty(null);
             }
         }
         Class targetClass = target.getClass();
         if (mSetter == null) {
             setupSetter(targetClass);
         }
-        for (Keyframe kf : mKeyframeSet.mKeyframes) {
-            if (!kf.hasValue()) {
+        for (int i = 0; i < mKeyframeSet.mNumKeyframes; ++i) {
+            if (!mKeyframeSet.hasKeyframeValue(i)) {
                 if (mGetter == null) {
                     setupGetter(targetClass);
                 }
                 try {
-                    kf.setValue(mGetter.invoke(target));
+                    mKeyframeSet.setKeyframeValue(i, mGetter.invoke(target));
                 } catch (InvocationTargetException e) {
                     Log.e("PropertyValuesHolder", e.toString());
                 } catch (IllegalAccessException e) {
@@ -338,23 +265,37 @@ public class PropertyValuesHolder implements Cloneable {
         }
     }
 
+    /**
+     * Returns whether a property of the given type can receive the values of this holder.
+     */
+    private boolean acceptsPropertyType(Class type) {
+        if (mValueType == float.class) {
+            return type == Float.class;
+        }
+        if (mValueType == int.class) {
+            return type == Integer.class;
+        }
+        return mValueType != null && type.isAssignableFrom(mValueType);
+    }
+
     /**
      * Utility function to set the value stored in a particular Keyframe. The value used is
      * whatever the value is for the property name specified in the keyframe on the target object.
      *
      * @param target The target object from which the current value should be extracted.
-     * @param kf The keyframe which holds the property name and value.
+     * @param index The index of the keyframe which holds the property name and value.
      */
-    private void setupValue(Object target, Keyframe kf) {
+    private void setupValue(Object target, int index) {
         if (mProperty != null) {
-            kf.setValue(mProperty.get(target));
+            mKeyframeSet.setKeyframeValue(index, mProperty.get(target));
+            return;
         }
         try {
             if (mGetter == null) {
                 Class targetClass = target.getClass();
                 setupGetter(targetClass);
             }
-            kf.setValue(mGetter.invoke(target));
+            mKeyframeSet.setKeyframeValue(index, mGetter.invoke(target));
         } catch (InvocationTargetException e) {
             Log.e("PropertyValuesHolder", e.toString());
         } catch (IllegalAccessException e) {
@@ -363,7 +304,7 @@ public class PropertyValuesHolder implements Cloneable {
     }
 
     void setupStartValue(Object target) {
-        setupValue(target, mKeyframeSet.mKeyframes.get(0));
+        setupValue(target, 0);
     }
 
     /**
@@ -375,7 +316,7 @@ public class PropertyValuesHolder implements Cloneable {
      * @param target The object which holds the start values that should be set.
      */
     void setupEndValue(Object target) {
-        setupValue(target, mKeyframeSet.mKeyframes.get(mKeyframeSet.mKeyframes.size() - 1));
+        setupValue(target, mKeyframeSet.mNumKeyframes - 1);
     }
 
     @Override
@@ -458,6 +399,22 @@ public class PropertyValuesHolder implements Cloneable {
         return mAnimatedValue;
     }
 
+    /**
+     * Internal function, called by ValueAnimator, to retrieve the value most recently calculated
+     * in calculateValue() as a float. The float and int subclasses return it without boxing.
+     */
+    float getAnimatedFloatValue() {
+        return ((Number) getAnimatedValue()).floatValue();
+    }
+
+    /**
+     * Internal function, called by ValueAnimator, to retrieve the value most recently calculated
+     * in calculateValue() as an int. The float and int subclasses return it without boxing.
+     */
+    int getAnimatedIntValue() {
+        return ((Number) getAnimatedValue()).intValue();
+    }
+
     @Override
     public String toString() {
         return mPropertyName + ": " + mKeyframeSet.toString();
@@ -530,6 +487,22 @@ public class PropertyValuesHolder implements Cloneable {
             return mIntAnimatedValue;
         }
 
+        @Override
+        float getAnimatedFloatValue() {
+            return mIntAnimatedValue;
+        }
+
+        @Override
+        int getAnimatedIntValue() {
+            return mIntAnimatedValue;
+        }
+
+        @Override
+        public void setProperty(Property property) {
+            super.setProperty(property);
+            mIntProperty = property instanceof IntProperty ? (IntProperty) property : null;
+        }
+
         @Override
         public IntPropertyValuesHolder clone() {
             IntPropertyValuesHolder newPVH = (IntPropertyValuesHolder) super.clone();
@@ -630,6 +603,22 @@ public class PropertyValuesHolder implements Cloneable {
             return mFloatAnimatedValue;
         }
 
+        @Override
+        float getAnimatedFloatValue() {
+            return mFloatAnimatedValue;
+        }
+
+        @Override
+        int getAnimatedIntValue() {
+            return (int) mFloatAnimatedValue;
+        }
+
+        @Override
+        public void setProperty(Property property) {
+            super.setProperty(property);
+            mFloatProperty = property instanceof FloatProperty ? (FloatProperty) property : null;
+        }
+
         @Override
         public FloatPropertyValuesHolder clone() {
             FloatPropertyValuesHolder newPVH = (FloatPropertyValuesHolder) super.clone();
@@ -16,9 +16,7 @@
 
 package com.nineoldandroids.animation;
 
-import android.os.Handler;
 import android.os.Looper;
-import android.os.Message;
 import android.util.AndroidRuntimeException;
 import android.view.animation.AccelerateDecelerateInterpolator;
 import android.view.animation.AnimationUtils;
@@ -47,17 +45,11 @@ public class ValueAnimator extends Animator {
      */
 
     /*
-     * The default amount of time in ms between animation frames
+     * The default amount of time in ms between animation frames, on devices without a
+     * Choreographer
      */
     private static final long DEFAULT_FRAME_DELAY = 10;
 
-    /**
-     * Messages sent to timing handler: START is sent when an animation first begins, FRAME is sent
-     * by the handler to itself to process the next animation frame
-     */
-    static final int ANIMATION_START = 0;
-    static final int ANIMATION_FRAME = 1;
-
     /**
      * Values used with internal variable mPlayingState to indicate the current state of an
      * animation.
@@ -84,61 +76,29 @@ public class ValueAnimator extends Animator {
      */
     long mSeekTime = -1;
 
-    // TODO: We access the following ThreadLocal variables often, some of them on every update.
-    // If ThreadLocal access is significantly expensive, we may want to put all of these
-    // fields into a structure sot hat we just access ThreadLocal once to get the reference
-    // to that structure, then access the structure directly for each field.
-
     // The static sAnimationHandler processes the internal timing loop on which all animations
-    // are based
-    private static ThreadLocal<AnimationHandler> sAnimationHandler =
-            new ThreadLocal<AnimationHandler>();
-
-    // The per-thread list of all active animations
-    private static final ThreadLocal<ArrayList<ValueAnimator>> sAnimations =
-            new ThreadLocal<ArrayList<ValueAnimator>>() {
+    // are based. It also holds the per-thread queues of pending, delayed and active animations,
+    // so each operation needs a single ThreadLocal lookup.
+    private static final ThreadLocal<AnimationHandler> sAnimationHandler =
+            new ThreadLocal<AnimationHandler>() {
                 @Override
-                protected ArrayList<ValueAnimator> initialValue() {
-                    return new ArrayList<ValueAnimator>();
-                }
-            };
-
-    // The per-thread set of animations to be started on the next animation frame
-    private static final ThreadLocal<ArrayList<ValueAnimator>> sPendingAnimations =
-            new ThreadLocal<ArrayList<ValueAnimator>>() {
-                @Override
-                protected ArrayList<ValueAnimator> initialValue() {
-                    return new ArrayList<ValueAnimator>();
+                protected AnimationHandler initialValue() {
+                    return new AnimationHandler();
                 }
             };
 
     /**
-     * Internal per-thread collections used to avoid set collisions as animations start and end
-     * while being processed.
+     * Slots of this animation in the queues of its thread's AnimationHandler, -1 when it is not
+     * on the queue. They make adding, removing and membership tests O(1).
      */
-    private static final ThreadLocal<ArrayList<ValueAnimator>> sDelayedAnims =
-            new ThreadLocal<ArrayList<ValueAnimator>>() {
-                @Override
-                protected ArrayList<ValueAnimator> initialValue() {
-                    return new ArrayList<ValueAnimator>();
-                }
-            };
+    private int mPendingIndex = -1;
+    private int mDelayedIndex = -1;
+    private int mActiveIndex = -1;
 
-    private static final ThreadLocal<ArrayList<ValueAnimator>> sEndingAnims =
-            new ThreadLocal<ArrayList<ValueAnimator>>() {
-                @Override
-                protected ArrayList<ValueAnimator> initialValue() {
-                    return new ArrayList<ValueAnimator>();
-                }
-            };
-
-    private static final ThreadLocal<ArrayList<ValueAnimator>> sReadyAnims =
-            new ThreadLocal<ArrayList<ValueAnimator>>() {
-                @Override
-                protected ArrayList<ValueAnimator> initialValue() {
-                    return new ArrayList<ValueAnimator>();
-                }
-            };
+    // Time at which the startDelay of this animation expires, and the order in which it was
+    // delayed, which orders the delayed animations expiring at the same time
+    private long mDelayDueTime;
+    private long mDelaySequence;
 
     // The time interpolator to be used if none is set on the animation
     private static final /*Time*/Interpolator sDefaultInterpolator =
@@ -244,6 +204,12 @@ public class ValueAnimator extends Animator {
      */
     private ArrayList<AnimatorUpdateListener> mUpdateListeners = null;
 
+    /**
+     * The listeners receiving the animated value of the first property as a primitive.
+     */
+    private ArrayList<FloatUpdateListener> mFloatUpdateListeners = null;
+    private ArrayList<IntUpdateListener> mIntUpdateListeners = null;
+
     /**
      * The property/value sets being animated.
      */
@@ -559,6 +525,253 @@ public class ValueAnimator extends Animator {
         return AnimationUtils.currentAnimationTimeMillis() - mStartTime;
     }
 
+    /**
+     * Queue of animations that tracks the slot of each animation in the animation itself.
+     * Removing an animation clears its slot and the holes are compacted once the handler is
+     * done iterating, so removal is O(1), the order of the animations is kept, and queues can
+     * be changed while they are iterated: animations added during an iteration are appended
+     * after its end.
+     */
+    private static final class AnimationQueue {
+        private static final int PENDING = 0;
+        private static final int ACTIVE = 1;
+        private static final int INITIAL_CAPACITY = 16;
+
+        private final int mKind;
+        private ValueAnimator[] mAnimations = new ValueAnimator[INITIAL_CAPACITY];
+        // number of slots in use, including the holes left by removed animations
+        private int mSlotCount;
+        private int mSize;
+        // set while the handler iterates the queue, holes are only compacted when clear
+        private boolean mIterating;
+
+        AnimationQueue(int kind) {
+            mKind = kind;
+        }
+
+        private int indexOf(ValueAnimator anim) {
+            return mKind == PENDING ? anim.mPendingIndex : anim.mActiveIndex;
+        }
+
+        private void setIndex(ValueAnimator anim, int index) {
+            if (mKind == PENDING) {
+                anim.mPendingIndex = index;
+            } else {
+                anim.mActiveIndex = index;
+            }
+        }
+
+        boolean contains(ValueAnimator anim) {
+            return indexOf(anim) >= 0;
+        }
+
+        void add(ValueAnimator anim) {
+            if (contains(anim)) {
+                return;
+            }
+            if (mSlotCount == mAnimations.length) {
+                if (!mIterating && mSize < mSlotCount) {
+                    compact();
+                } else {
+                    ValueAnimator[] animations = new ValueAnimator[mSlotCount * 2];
+                    System.arraycopy(mAnimations, 0, animations, 0, mSlotCount);
+                    mAnimations = animations;
+                }
+            }
+            setIndex(anim, mSlotCount);
+            mAnimations[mSlotCount++] = anim;
+            ++mSize;
+        }
+
+        void remove(ValueAnimator anim) {
+            int index = indexOf(anim);
+            if (index < 0) {
+                return;
+            }
+            mAnimations[index] = null;
+            setIndex(anim, -1);
+            --mSize;
+        }
+
+        int size() {
+            return mSize;
+        }
+
+        boolean isEmpty() {
+            return mSize == 0;
+        }
+
+        /**
+         * The number of slots to iterate with {@link #get(int)}, including holes.
+         */
+        int slotCount() {
+            return mSlotCount;
+        }
+
+        /**
+         * The animation in a slot, or null if the slot is a hole.
+         */
+        ValueAnimator get(int slot) {
+            return mAnimations[slot];
+        }
+
+        void setIterating(boolean iterating) {
+            mIterating = iterating;
+            if (!iterating && mSize < mSlotCount) {
+                compact();
+            }
+        }
+
+        private void compact() {
+            int count = 0;
+            for (int i = 0; i < mSlotCount; ++i) {
+                ValueAnimator anim = mAnimations[i];
+                if (anim != null) {
+                    setIndex(anim, count);
+                    mAnimations[count++] = anim;
+                }
+            }
+            for (int i = count; i < mSlotCount; ++i) {
+                mAnimations[i] = null;
+            }
+            mSlotCount = count;
+        }
+
+        void clear() {
+            for (int i = 0; i < mSlotCount; ++i) {
+                ValueAnimator anim = mAnimations[i];
+                if (anim != null) {
+                    setIndex(anim, -1);
+                    mAnimations[i] = null;
+                }
+            }
+            mSlotCount = 0;
+            mSize = 0;
+        }
+    }
+
+    /**
+     * Min-heap of the animations sleeping through their startDelay, ordered by the time their
+     * delay expires. Each frame only looks at the animations that are due, and the handler can
+     * sleep until the earliest one. Every animation tracks its position in the heap, so
+     * cancelling a delayed animation is O(log n).
+     */
+    private static final class DelayedAnimationHeap {
+        private ValueAnimator[] mAnimations = new ValueAnimator[AnimationQueue.INITIAL_CAPACITY];
+        private int mSize;
+        private long mSequence;
+
+        boolean contains(ValueAnimator anim) {
+            return anim.mDelayedIndex >= 0;
+        }
+
+        boolean isEmpty() {
+            return mSize == 0;
+        }
+
+        /**
+         * Adds an animation whose startDelay expires at the given time.
+         */
+        void add(ValueAnimator anim, long dueTime) {
+            if (contains(anim)) {
+                remove(anim);
+            }
+            if (mSize == mAnimations.length) {
+                ValueAnimator[] animations = new ValueAnimator[mSize * 2];
+                System.arraycopy(mAnimations, 0, animations, 0, mSize);
+                mAnimations = animations;
+            }
+            anim.mDelayDueTime = dueTime;
+            anim.mDelaySequence = mSequence++;
+            siftUp(mSize++, anim);
+        }
+
+        /**
+         * The time the earliest startDelay expires. Only valid if the heap is not empty.
+         */
+        long peekDueTime() {
+            return mAnimations[0].mDelayDueTime;
+        }
+
+        /**
+         * Removes and returns the animation whose startDelay expires first.
+         */
+        ValueAnimator poll() {
+            ValueAnimator first = mAnimations[0];
+            removeAt(0);
+            return first;
+        }
+
+        void remove(ValueAnimator anim) {
+            int index = anim.mDelayedIndex;
+            if (index >= 0) {
+                removeAt(index);
+            }
+        }
+
+        void clear() {
+            for (int i = 0; i < mSize; ++i) {
+                mAnimations[i].mDelayedIndex = -1;
+                mAnimations[i] = null;
+            }
+            mSize = 0;
+        }
+
+        private void removeAt(int index) {
+            ValueAnimator removed = mAnimations[index];
+            removed.mDelayedIndex = -1;
+            ValueAnimator last = mAnimations[--mSize];
+            mAnimations[mSize] = null;
+            if (last != removed) {
+                siftDown(index, last);
+                if (last.mDelayedIndex == index) {
+                    siftUp(index, last);
+                }
+            }
+        }
+
+        private static boolean isBefore(ValueAnimator a, ValueAnimator b) {
+            return a.mDelayDueTime < b.mDelayDueTime ||
+                    (a.mDelayDueTime == b.mDelayDueTime && a.mDelaySequence < b.mDelaySequence);
+        }
+
+        private void siftUp(int index, ValueAnimator anim) {
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                ValueAnimator parentAnim = mAnimations[parent];
+                if (!isBefore(anim, parentAnim)) {
+                    break;
+                }
+                mAnimations[index] = parentAnim;
+                parentAnim.mDelayedIndex = index;
+                index = parent;
+            }
+            mAnimations[index] = anim;
+            anim.mDelayedIndex = index;
+        }
+
+        private void siftDown(int index, ValueAnimator anim) {
+            int half = mSize >>> 1;
+            while (index < half) {
+                int child = 2 * index + 1;
+                ValueAnimator childAnim = mAnimations[child];
+                int right = child + 1;
+                if (right < mSize && isBefore(mAnimations[right], childAnim)) {
+                    child = right;
+                    childAnim = mAnimations[child];
+                }
+                if (!isBefore(childAnim, anim)) {
+                    break;
+                }
+                mAnimations[index] = childAnim;
+                childAnim.mDelayedIndex = index;
+                index = child;
+            }
+            mAnimations[index] = anim;
+            anim.mDelayedIndex = index;
+        }
+    }
+
     /**
      * This custom, static handler handles the timing pulse that is shared by
      * all active animations. This approach ensures that the setting of animation
@@ -566,120 +779,129 @@ public class ValueAnimator extends Animator {
      * the same times for calculating their values, which makes synchronizing
      * animations possible.
      *
-     */
-    private static class AnimationHandler extends Handler {
+     * The pulse comes from an {@link AnimationFrameSource}: the display vsync where a
+     * Choreographer is available, a Handler message every frame delay otherwise. Each frame
+     * is computed once, with the time of the frame.
+     */
+    private static class AnimationHandler implements AnimationFrameSource.Callback {
+        // The animations to be started on the next animation frame
+        final AnimationQueue mPendingAnimations = new AnimationQueue(AnimationQueue.PENDING);
+        // The animations sleeping through their startDelay
+        final DelayedAnimationHeap mDelayedAnims = new DelayedAnimationHeap();
+        // All active animations
+        final AnimationQueue mAnimations = new AnimationQueue(AnimationQueue.ACTIVE);
+
+        /**
+         * Scratch buffers used to avoid set collisions as animations start and end while being
+         * processed. They are reused across frames.
+         */
+        private ValueAnimator[] mReadyAnims = new ValueAnimator[AnimationQueue.INITIAL_CAPACITY];
+        private ValueAnimator[] mEndingAnims = new ValueAnimator[AnimationQueue.INITIAL_CAPACITY];
+
+        // Created on the first start, on the Looper thread of the animations
+        private AnimationFrameSource mFrameSource;
+
         /**
-         * There are only two messages that we care about: ANIMATION_START and
-         * ANIMATION_FRAME. The START message is sent when an animation's start()
-         * method is called. It cannot start synchronously when start() is called
-         * because the call may be on the wrong thread, and it would also not be
-         * synchronized with other animations because it would not start on a common
-         * timing pulse. So each animation sends a START message to the handler, which
-         * causes the handler to place the animation on the active animations queue and
-         * start processing frames for that animation.
-         * The FRAME message is the one that is sent over and over while there are any
-         * active animations to process.
+         * Called when an animation's start() method is called. The animation cannot start
+         * synchronously because the call may be on the wrong thread, and it would also not be
+         * synchronized with other animations because it would not start on a common timing
+         * pulse. So the animation sits on the pending queue until the next frame, which places
+         * it on the active animations queue and starts processing frames for it.
          */
+        void start() {
+            if (mFrameSource == null) {
+                mFrameSource = AnimationFrameSource.create(this);
+            }
+            mFrameSource.scheduleFrame();
+        }
+
         @Override
-        public void handleMessage(Message msg) {
-            boolean callAgain = true;
-            ArrayList<ValueAnimator> animations = sAnimations.get();
-            ArrayList<ValueAnimator> delayedAnims = sDelayedAnims.get();
-            switch (msg.what) {
-                // TODO: should we avoid sending frame message when starting if we
-                // were already running?
-                case ANIMATION_START:
-                    ArrayList<ValueAnimator> pendingAnimations = sPendingAnimations.get();
-                    if (animations.size() > 0 || delayedAnims.size() > 0) {
-                        callAgain = false;
-                    }
-                    // pendingAnims holds any animations that have requested to be started
-                    // We're going to clear sPendingAnimations, but starting animation may
-                    // cause more to be added to the pending list (for example, if one animation
-                    // starting triggers another starting). So we loop until sPendingAnimations
-                    // is empty.
-                    while (pendingAnimations.size() > 0) {
-                        ArrayList<ValueAnimator> pendingCopy =
-                                (ArrayList<ValueAnimator>) pendingAnimations.clone();
-                        pendingAnimations.clear();
-                        int count = pendingCopy.size();
-                        for (int i = 0; i < count; ++i) {
-                            ValueAnimator anim = pendingCopy.get(i);
-                            // If the animation has a startDelay, place it on the delayed list
-                            if (anim.mStartDelay == 0) {
-                                anim.startAnimation();
-                            } else {
-                                delayedAnims.add(anim);
-                            }
-                        }
-                    }
-                    // fall through to process first frame of new animations
-                case ANIMATION_FRAME:
-                    // currentTime holds the common time for all animations processed
-                    // during this frame
-                    long currentTime = AnimationUtils.currentAnimationTimeMillis();
-                    ArrayList<ValueAnimator> readyAnims = sReadyAnims.get();
-                    ArrayList<ValueAnimator> endingAnims = sEndingAnims.get();
-
-                    // First, process animations currently sitting on the delayed queue, adding
-                    // them to the active animations if they are ready
-                    int numDelayedAnims = delayedAnims.size();
-                    for (int i = 0; i < numDelayedAnims; ++i) {
-                        ValueAnimator anim = delayedAnims.get(i);
-                        if (anim.delayedAnimationFrame(currentTime)) {
-                            readyAnims.add(anim);
-                        }
-                    }
-                    int numReadyAnims = readyAnims.size();
-                    if (numReadyAnims > 0) {
-                        for (int i = 0; i < numReadyAnims; ++i) {
-                            ValueAnimator anim = readyAnims.get(i);
-                            anim.startAnimation();
-                            anim.mRunning = true;
-                            delayedAnims.remove(anim);
-                        }
-                        readyAnims.clear();
-                    }
+        public void doAnimationFrame(long frameTime) {
+            // frameTime holds the common time for all animations processed
+            // during this frame
+            long currentTime = frameTime;
+
+            // Start the pending animations. Starting an animation may cause more to be added to
+            // the pending queue (for example, if one animation starting triggers another
+            // starting); they are appended and picked up by this same pass.
+            AnimationQueue pendingAnimations = mPendingAnimations;
+            DelayedAnimationHeap delayedAnims = mDelayedAnims;
+            pendingAnimations.setIterating(true);
+            for (int i = 0; i < pendingAnimations.slotCount(); ++i) {
+                ValueAnimator anim = pendingAnimations.get(i);
+                if (anim == null) {
+                    continue;
+                }
+                pendingAnimations.remove(anim);
+                // If the animation has a startDelay, place it on the delayed heap. The delay
+                // starts with this frame.
+                if (anim.mStartDelay == 0) {
+                    anim.startAnimation();
+                } else {
+                    anim.delayedAnimationFrame(currentTime);
+                    delayedAnims.add(anim, anim.mDelayStartTime + anim.mStartDelay);
+                }
+            }
+            pendingAnimations.setIterating(false);
+
+            // First, take the animations whose startDelay has expired off the delayed heap
+            int numReadyAnims = 0;
+            while (!delayedAnims.isEmpty() && delayedAnims.peekDueTime() < currentTime) {
+                ValueAnimator anim = delayedAnims.poll();
+                anim.delayedAnimationFrame(currentTime);
+                if (numReadyAnims == mReadyAnims.length) {
+                    mReadyAnims = grow(mReadyAnims);
+                }
+                mReadyAnims[numReadyAnims++] = anim;
+            }
+            for (int i = 0; i < numReadyAnims; ++i) {
+                ValueAnimator anim = mReadyAnims[i];
+                mReadyAnims[i] = null;
+                anim.startAnimation();
+                anim.mRunning = true;
+            }
 
-                    // Now process all active animations. The return value from animationFrame()
-                    // tells the handler whether it should now be ended
-                    int numAnims = animations.size();
-                    int i = 0;
-                    while (i < numAnims) {
-                        ValueAnimator anim = animations.get(i);
-                        if (anim.animationFrame(currentTime)) {
-                            endingAnims.add(anim);
-                        }
-                        if (animations.size() == numAnims) {
-                            ++i;
-                        } else {
-                            // An animation might be canceled or ended by client code
-                            // during the animation frame. Check to see if this happened by
-                            // seeing whether the current index is the same as it was before
-                            // calling animationFrame(). Another approach would be to copy
-                            // animations to a temporary list and process that list instead,
-                            // but that entails garbage and processing overhead that would
-                            // be nice to avoid.
-                            --numAnims;
-                            endingAnims.remove(anim);
-                        }
-                    }
-                    if (endingAnims.size() > 0) {
-                        for (i = 0; i < endingAnims.size(); ++i) {
-                            endingAnims.get(i).endAnimation();
-                        }
-                        endingAnims.clear();
+            // Now process all active animations. The return value from animationFrame()
+            // tells the handler whether it should now be ended. An animation might be
+            // canceled or ended by client code during the animation frame, which leaves
+            // a hole in the queue instead of shifting the animations after it.
+            AnimationQueue animations = mAnimations;
+            int numEndingAnims = 0;
+            animations.setIterating(true);
+            int numSlots = animations.slotCount();
+            for (int i = 0; i < numSlots; ++i) {
+                ValueAnimator anim = animations.get(i);
+                if (anim != null && anim.animationFrame(currentTime)) {
+                    if (numEndingAnims == mEndingAnims.length) {
+                        mEndingAnims = grow(mEndingAnims);
                     }
+                    mEndingAnims[numEndingAnims++] = anim;
+                }
+            }
+            animations.setIterating(false);
+            for (int i = 0; i < numEndingAnims; ++i) {
+                ValueAnimator anim = mEndingAnims[i];
+                mEndingAnims[i] = null;
+                // Skip the animations that client code already ended during this frame
+                if (animations.contains(anim)) {
+                    anim.endAnimation();
+                }
+            }
 
-                    // If there are still active or delayed animations, call the handler again
-                    // after the frameDelay
-                    if (callAgain && (!animations.isEmpty() || !delayedAnims.isEmpty())) {
-                        sendEmptyMessageDelayed(ANIMATION_FRAME, Math.max(0, sFrameDelay -
-                            (AnimationUtils.currentAnimationTimeMillis() - currentTime)));
-                    }
-                    break;
+            // If there are still active or newly started animations, schedule the next
+            // frame. If only delayed animations are left, sleep until the first one is due.
+            if (!animations.isEmpty() || !pendingAnimations.isEmpty()) {
+                mFrameSource.scheduleFrame();
+            } else if (!delayedAnims.isEmpty()) {
+                mFrameSource.scheduleFrameAt(delayedAnims.peekDueTime());
             }
         }
+
+        private static ValueAnimator[] grow(ValueAnimator[] anims) {
+            ValueAnimator[] grown = new ValueAnimator[anims.length * 2];
+            System.arraycopy(anims, 0, grown, 0, anims.length);
+            return grown;
+        }
     }
 
     /**
@@ -720,7 +942,8 @@ public class ValueAnimator extends Animator {
      * requested time that the animation will attempt to honor, but the actual delay between
      * frames may be different, depending on system load and capabilities. This is a static
      * function because the same delay will be applied to all animations, since they are all
-     * run off of a single timing loop.
+     * run off of a single timing loop. On devices with a Choreographer, frames follow the
+     * display vsync and this delay is ignored.
      *
      * @param frameDelay the requested time between frames, in milliseconds
      */
@@ -768,6 +991,37 @@ public class ValueAnimator extends Animator {
         }
     }
 
+    /**
+     * The most recent value calculated by this <code>ValueAnimator</code> for the first property
+     * being animated, as a float. Unlike {@link #getAnimatedValue()} this does not box the value
+     * of animations created with {@link #ofFloat(float...)} or {@link #ofInt(int...)}, so it can
+     * be read on every frame without allocating.
+     *
+     * @return The value most recently calculated for the first property, as a float.
+     */
+    public float getAnimatedFloatValue() {
+        return getFirstValuesHolder().getAnimatedFloatValue();
+    }
+
+    /**
+     * The most recent value calculated by this <code>ValueAnimator</code> for the first property
+     * being animated, as an int. Unlike {@link #getAnimatedValue()} this does not box the value
+     * of animations created with {@link #ofFloat(float...)} or {@link #ofInt(int...)}, so it can
+     * be read on every frame without allocating. Float values are truncated.
+     *
+     * @return The value most recently calculated for the first property, as an int.
+     */
+    public int getAnimatedIntValue() {
+        return getFirstValuesHolder().getAnimatedIntValue();
+    }
+
+    private PropertyValuesHolder getFirstValuesHolder() {
+        if (mValues == null || mValues.length == 0) {
+            throw new IllegalStateException("ValueAnimator has no values to animate");
+        }
+        return mValues[0];
+    }
+
     /**
      * Sets how many times the animation should be repeated. If the repeat
      * count is 0, the animation is never repeated. If the repeat count is
@@ -823,10 +1077,74 @@ public class ValueAnimator extends Animator {
         mUpdateListeners.add(listener);
     }
 
+    /**
+     * Adds a listener to the set of listeners that are sent update events through the life of
+     * an animation, with the value of the first property as a float. Reading the value this way
+     * does not allocate on each frame.
+     *
+     * @param listener the listener to be added to the current set of listeners for this
+     * animation.
+     */
+    public void addFloatUpdateListener(FloatUpdateListener listener) {
+        if (mFloatUpdateListeners == null) {
+            mFloatUpdateListeners = new ArrayList<FloatUpdateListener>();
+        }
+        mFloatUpdateListeners.add(listener);
+    }
+
+    /**
+     * Removes a listener added with {@link #addFloatUpdateListener(FloatUpdateListener)}.
+     *
+     * @param listener the listener to be removed from the current set of float update
+     * listeners for this animation.
+     */
+    public void removeFloatUpdateListener(FloatUpdateListener listener) {
+        if (mFloatUpdateListeners == null) {
+            return;
+        }
+        mFloatUpdateListeners.remove(listener);
+        if (mFloatUpdateListeners.size() == 0) {
+            mFloatUpdateListeners = null;
+        }
+    }
+
+    /**
+     * Adds a listener to the set of listeners that are sent update events through the life of
+     * an animation, with the value of the first property as an int. Reading the value this way
+     * does not allocate on each frame.
+     *
+     * @param listener the listener to be added to the current set of listeners for this
+     * animation.
+     */
+    public void addIntUpdateListener(IntUpdateListener listener) {
+        if (mIntUpdateListeners == null) {
+            mIntUpdateListeners = new ArrayList<IntUpdateListener>();
+        }
+        mIntUpdateListeners.add(listener);
+    }
+
+    /**
+     * Removes a listener added with {@link #addIntUpdateListener(IntUpdateListener)}.
+     *
+     * @param listener the listener to be removed from the current set of int update
+     * listeners for this animation.
+     */
+    public void removeIntUpdateListener(IntUpdateListener listener) {
+        if (mIntUpdateListeners == null) {
+            return;
+        }
+        mIntUpdateListeners.remove(listener);
+        if (mIntUpdateListeners.size() == 0) {
+            mIntUpdateListeners = null;
+        }
+    }
+
     /**
      * Removes all listeners from the set listening to frame updates for this animation.
      */
     public void removeAllUpdateListeners() {
+        mFloatUpdateListeners = null;
+        mIntUpdateListeners = null;
         if (mUpdateListeners == null) {
             return;
         }
@@ -922,7 +1240,8 @@ public class ValueAnimator extends Animator {
         mPlayingState = STOPPED;
         mStarted = true;
         mStartedDelay = false;
-        sPendingAnimations.get().add(this);
+        AnimationHandler animationHandler = sAnimationHandler.get();
+        animationHandler.mPendingAnimations.add(this);
         if (mStartDelay == 0) {
             // This sets the initial value of the animation, prior to actually starting it running
             setCurrentPlayTime(getCurrentPlayTime());
@@ -938,12 +1257,7 @@ public class ValueAnimator extends Animator {
                 }
             }
         }
-        AnimationHandler animationHandler = sAnimationHandler.get();
-        if (animationHandler == null) {
-            animationHandler = new AnimationHandler();
-            sAnimationHandler.set(animationHandler);
-        }
-        animationHandler.sendEmptyMessage(ANIMATION_START);
+        animationHandler.start();
     }
 
     @Override
@@ -955,8 +1269,9 @@ public class ValueAnimator extends Animator {
     public void cancel() {
         // Only cancel if the animation is actually running or has been started and is about
         // to run
-        if (mPlayingState != STOPPED || sPendingAnimations.get().contains(this) ||
-                sDelayedAnims.get().contains(this)) {
+        AnimationHandler animationHandler = sAnimationHandler.get();
+        if (mPlayingState != STOPPED || animationHandler.mPendingAnimations.contains(this) ||
+                animationHandler.mDelayedAnims.contains(this)) {
             // Only notify listeners if the animator has actually started
             if (mRunning && mListeners != null) {
                 ArrayList<AnimatorListener> tmpListeners =
@@ -971,7 +1286,9 @@ public class ValueAnimator extends Animator {
 
     @Override
     public void end() {
-        if (!sAnimations.get().contains(this) && !sPendingAnimations.get().contains(this)) {
+        AnimationHandler animationHandler = sAnimationHandler.get();
+        if (!animationHandler.mAnimations.contains(this) &&
+                !animationHandler.mPendingAnimations.contains(this)) {
             // Special case if the animation has not yet started; get it ready for ending
             mStartedDelay = false;
             startAnimation();
@@ -1022,9 +1339,10 @@ public class ValueAnimator extends Animator {
      * called on the UI thread.
      */
     private void endAnimation() {
-        sAnimations.get().remove(this);
-        sPendingAnimations.get().remove(this);
-        sDelayedAnims.get().remove(this);
+        AnimationHandler animationHandler = sAnimationHandler.get();
+        animationHandler.mAnimations.remove(this);
+        animationHandler.mPendingAnimations.remove(this);
+        animationHandler.mDelayedAnims.remove(this);
         mPlayingState = STOPPED;
         if (mRunning && mListeners != null) {
             ArrayList<AnimatorListener> tmpListeners =
@@ -1044,7 +1362,7 @@ public class ValueAnimator extends Animator {
      */
     private void startAnimation() {
         initAnimation();
-        sAnimations.get().add(this);
+        sAnimationHandler.get().mAnimations.add(this);
         if (mStartDelay > 0 && mListeners != null) {
             // Listeners were already notified in start() if startDelay is 0; this is
             // just for delayed animations
@@ -1178,6 +1496,20 @@ public class ValueAnimator extends Animator {
                 mUpdateListeners.get(i).onAnimationUpdate(this);
             }
         }
+        if (mFloatUpdateListeners != null) {
+            float value = mValues[0].getAnimatedFloatValue();
+            int numListeners = mFloatUpdateListeners.size();
+            for (int i = 0; i < numListeners; ++i) {
+                mFloatUpdateListeners.get(i).onAnimationUpdate(this, value);
+            }
+        }
+        if (mIntUpdateListeners != null) {
+            int value = mValues[0].getAnimatedIntValue();
+            int numListeners = mIntUpdateListeners.size();
+            for (int i = 0; i < numListeners; ++i) {
+                mIntUpdateListeners.get(i).onAnimationUpdate(this, value);
+            }
+        }
     }
 
     @Override
@@ -1191,12 +1523,22 @@ public class ValueAnimator extends Animator {
                 anim.mUpdateListeners.add(oldListeners.get(i));
             }
         }
+        if (mFloatUpdateListeners != null) {
+            anim.mFloatUpdateListeners =
+                    new ArrayList<FloatUpdateListener>(mFloatUpdateListeners);
+        }
+        if (mIntUpdateListeners != null) {
+            anim.mIntUpdateListeners = new ArrayList<IntUpdateListener>(mIntUpdateListeners);
+        }
         anim.mSeekTime = -1;
         anim.mPlayingBackwards = false;
         anim.mCurrentIteration = 0;
         anim.mInitialized = false;
         anim.mPlayingState = STOPPED;
         anim.mStartedDelay = false;
+        anim.mPendingIndex = -1;
+        anim.mDelayedIndex = -1;
+        anim.mActiveIndex = -1;
         PropertyValuesHolder[] oldValues = mValues;
         if (oldValues != null) {
             int numValues = oldValues.length;
@@ -1227,6 +1569,36 @@ public class ValueAnimator extends Animator {
 
     }
 
+    /**
+     * Implementors of this interface can add themselves as float update listeners to a
+     * <code>ValueAnimator</code> instance to receive the value of its first property on every
+     * animation frame, without the boxing of {@link #getAnimatedValue()}.
+     */
+    public static interface FloatUpdateListener {
+        /**
+         * <p>Notifies the occurrence of another frame of the animation.</p>
+         *
+         * @param animation The animation which was updated.
+         * @param value The value calculated for the first property, as a float.
+         */
+        void onAnimationUpdate(ValueAnimator animation, float value);
+    }
+
+    /**
+     * Implementors of this interface can add themselves as int update listeners to a
+     * <code>ValueAnimator</code> instance to receive the value of its first property on every
+     * animation frame, without the boxing of {@link #getAnimatedValue()}.
+     */
+    public static interface IntUpdateListener {
+        /**
+         * <p>Notifies the occurrence of another frame of the animation.</p>
+         *
+         * @param animation The animation which was updated.
+         * @param value The value calculated for the first property, as an int.
+         */
+        void onAnimationUpdate(ValueAnimator animation, int value);
+    }
+
     /**
      * Return the number of animations currently running.
      *
@@ -1236,7 +1608,7 @@ public class ValueAnimator extends Animator {
      * @hide
      */
     public static int getCurrentAnimationsCount() {
-        return sAnimations.get().size();
+        return sAnimationHandler.get().mAnimations.size();
     }
 
     /**
@@ -1246,9 +1618,10 @@ public class ValueAnimator extends Animator {
      * @hide
      */
     public static void clearAllAnimations() {
-        sAnimations.get().clear();
-        sPendingAnimations.get().clear();
-        sDelayedAnims.get().clear();
+        AnimationHandler animationHandler = sAnimationHandler.get();
+        animationHandler.mAnimations.clear();
+        animationHandler.mPendingAnimations.clear();
+        animationHandler.mDelayedAnims.clear();
     }
 
     @Override
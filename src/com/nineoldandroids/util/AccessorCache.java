@@ -0,0 +1,167 @@
+package com.nineoldandroids.util;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide cache of the reflective accessors found for animated properties, shared by
+ * {@link com.nineoldandroids.animation.PropertyValuesHolder} and {@link Property#of}, which also
+ * holds the properties of the {@link PropertyRegistry}. Lookups
+ * are keyed by class, name and value type and remember the members that do not exist, so setting
+ * up an animator for a class that was seen before costs a single map probe and no reflection.
+ * Safe to use from any thread.
+ *
+ * @hide
+ */
+public final class AccessorCache {
+
+    static final int KIND_METHOD = 0;
+    static final int KIND_VARIANTS = 1;
+    static final int KIND_FIELD = 2;
+    static final int KIND_PROPERTY = 3;
+    // properties registered with PropertyRegistry, as registered and as resolved for a class
+    static final int KIND_REGISTERED = 4;
+    static final int KIND_RESOLVED = 5;
+    // classes generated for the Animatable setters of a class
+    static final int KIND_GENERATED = 6;
+
+    // stored for lookups that found nothing, as the map does not accept null values
+    static final Object NOT_FOUND = new Object();
+
+    private static final ConcurrentHashMap<Key, Object> sCache =
+            new ConcurrentHashMap<Key, Object>();
+
+    private AccessorCache() {}
+
+    /**
+     * Returns the public method of the given name and parameter, falling back to a method
+     * declared by the class itself whatever its visibility.
+     *
+     * @param targetClass The class on which to look the method up.
+     * @param methodName The name of the method.
+     * @param parameterType The type of the single parameter, or null for a no-arg method.
+     * @return The method, made accessible, or null if there is none.
+     */
+    public static Method findMethod(Class targetClass, String methodName, Class parameterType) {
+        Key key = new Key(targetClass, methodName, parameterType, KIND_METHOD);
+        Object cached = sCache.get(key);
+        if (cached == null) {
+            Class[] args = parameterType == null ? null : new Class[] {parameterType};
+            Method method;
+            try {
+                method = targetClass.getMethod(methodName, args);
+            } catch (NoSuchMethodException e) {
+                /* The native implementation uses JNI to do reflection, which allows access to private methods.
+                 * getDeclaredMethod(..) does not find superclass methods, so it's implemented as a fallback.
+                 */
+                try {
+                    method = targetClass.getDeclaredMethod(methodName, args);
+                    method.setAccessible(true);
+                } catch (NoSuchMethodException e2) {
+                    method = null;
+                }
+            }
+            cached = put(key, method);
+        }
+        return cached == NOT_FOUND ? null : (Method) cached;
+    }
+
+    /**
+     * Returns the single argument method of the given name accepting the first of the type
+     * variants that exists on the class, see {@link #findMethod(Class, String, Class)}. The
+     * variant that matched is the parameter type of the returned method.
+     *
+     * @param targetClass The class on which to look the method up.
+     * @param methodName The name of the method.
+     * @param valueType The type of the values, identifying the lookup.
+     * @param typeVariants The parameter types to try, in order of preference.
+     * @return The method, or null if none of the variants exists.
+     */
+    public static Method findMethod(Class targetClass, String methodName, Class valueType,
+            Class[] typeVariants) {
+        Key key = new Key(targetClass, methodName, valueType, KIND_VARIANTS);
+        Object cached = sCache.get(key);
+        if (cached == null) {
+            Method method = null;
+            for (int i = 0; i < typeVariants.length && method == null; i++) {
+                method = findMethod(targetClass, methodName, typeVariants[i]);
+            }
+            cached = put(key, method);
+        }
+        return cached == NOT_FOUND ? null : (Method) cached;
+    }
+
+    /**
+     * Returns the public field of the given name, or null if there is none.
+     */
+    public static Field findField(Class targetClass, String fieldName) {
+        Key key = new Key(targetClass, fieldName, null, KIND_FIELD);
+        Object cached = sCache.get(key);
+        if (cached == null) {
+            Field field;
+            try {
+                field = targetClass.getField(fieldName);
+            } catch (NoSuchFieldException e) {
+                field = null;
+            }
+            cached = put(key, field);
+        }
+        return cached == NOT_FOUND ? null : (Field) cached;
+    }
+
+    static Object get(Key key) {
+        return sCache.get(key);
+    }
+
+    /**
+     * Caches the result of a lookup, null meaning not found, and returns the cached value. When
+     * two threads race on the same key the first result stored wins.
+     */
+    static Object put(Key key, Object value) {
+        Object stored = value == null ? NOT_FOUND : value;
+        Object previous = sCache.putIfAbsent(key, stored);
+        return previous != null ? previous : stored;
+    }
+
+    /**
+     * Caches a value replacing any previous one, for entries that are not plain lookups.
+     */
+    static void replace(Key key, Object value) {
+        sCache.put(key, value);
+    }
+
+    static final class Key {
+        private final Class mOwner;
+        private final String mName;
+        private final Class mType;
+        private final int mKind;
+        private final int mHash;
+
+        Key(Class owner, String name, Class type, int kind) {
+            mOwner = owner;
+            mName = name;
+            mType = type;
+            mKind = kind;
+            int hash = owner.hashCode();
+            hash = 31 * hash + name.hashCode();
+            hash = 31 * hash + (type == null ? 0 : type.hashCode());
+            mHash = 31 * hash + kind;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return mOwner == other.mOwner && mType == other.mType && mKind == other.mKind
+                    && mName.equals(other.mName);
+        }
+
+        @Override
+        public int hashCode() {
+            return mHash;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.nineoldandroids.util;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a <code>float</code> or <code>int</code> setter as an animatable property. The annotation
+ * processor of the <code>processor</code> module generates a {@link FloatProperty} or
+ * {@link IntProperty} for each annotated setter of a class, in a class named after it with a
+ * <code>$$Properties</code> suffix, and {@link PropertyRegistry#find(Class, String)} registers them
+ * the first time the class is looked up. <code>ObjectAnimator.ofFloat(target, "offset", 1f)</code>
+ * then sets the value with a direct call instead of reflection.
+ *
+ * <pre>
+ * &#64;Animatable
+ * public void setOffset(float offset) { ... }
+ * public float getOffset() { ... }
+ * </pre>
+ *
+ * <p>The setter takes a single <code>float</code> or <code>int</code> and must not be private or
+ * static. The class needs a getter for the same property, <code>getOffset()</code> or
+ * <code>isOffset()</code> returning the same type, which the animator reads when no start value
+ * is given.</p>
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.METHOD)
+public @interface Animatable {
+
+    /**
+     * The name of the property. Defaults to the name of the setter without its <code>set</code>
+     * prefix and with its first letter lower cased.
+     */
+    String value() default "";
+}
@@ -0,0 +1,131 @@
+package com.nineoldandroids.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Registry of the typed {@link Property} implementations of a class. Animators created with a
+ * property name, such as <code>ObjectAnimator.ofFloat(target, "alpha", 1f)</code>, look the name
+ * up here before falling back to reflection. A registered {@link FloatProperty} or
+ * {@link IntProperty} sets the animated value with a direct call, without boxing it and without
+ * the cost of <code>Method.invoke()</code> on every frame.
+ *
+ * <p>Classes usually register their properties from a static initializer:</p>
+ *
+ * <pre>
+ * static {
+ *     PropertyRegistry.register(ChatHead.class, new FloatProperty&lt;ChatHead&gt;("offset") {
+ *         public void setValue(ChatHead object, float value) { object.setOffset(value); }
+ *         public Float get(ChatHead object) { return object.getOffset(); }
+ *     });
+ * }
+ * </pre>
+ *
+ * <p>Instead of registering them by hand, setters can be annotated with {@link Animatable} and
+ * have their properties generated by the annotation processor. The generated class registers them
+ * when it is loaded, the first time {@link #find(Class, String)} looks up its class.</p>
+ *
+ * <p>A property registered for a class also applies to its subclasses, unless a subclass
+ * registers its own property with the same name. Registrations and resolved lookups live in the
+ * {@link AccessorCache}, so a lookup takes no lock and costs one map probe once resolved.</p>
+ */
+public final class PropertyRegistry {
+
+    // bumped by every registration, resolved lookups of an older generation are resolved again
+    private static final AtomicInteger sGeneration = new AtomicInteger();
+
+    /**
+     * Suffix of the name of the class generated for the {@link Animatable} setters of a class.
+     */
+    public static final String GENERATED_SUFFIX = "$$Properties";
+
+    // a cached result of find(), null for a miss
+    private static final class Resolved {
+        final Property property;
+        final int generation;
+
+        Resolved(Property property, int generation) {
+            this.property = property;
+            this.generation = generation;
+        }
+    }
+
+    private PropertyRegistry() {}
+
+    /**
+     * Registers a property for a class and its subclasses, replacing any property previously
+     * registered with the same name for that class.
+     *
+     * @param hostType The class the property applies to.
+     * @param property The property, looked up by its {@link Property#getName() name}.
+     */
+    public static <T> void register(Class<T> hostType, Property<T, ?> property) {
+        if (hostType == null) {
+            throw new IllegalArgumentException("hostType is required");
+        }
+        if (property == null) {
+            throw new IllegalArgumentException("property is required");
+        }
+        AccessorCache.replace(new AccessorCache.Key(hostType, property.getName(), null,
+                AccessorCache.KIND_REGISTERED), property);
+        // lookups of subclasses may now resolve differently
+        sGeneration.incrementAndGet();
+    }
+
+    /**
+     * Returns the property registered under the given name for the class or its closest
+     * superclass, or null if there is none. Results are cached per class until the next
+     * registration.
+     *
+     * @param targetClass The class of the animated object.
+     * @param name The name of the property.
+     */
+    public static Property find(Class targetClass, String name) {
+        if (targetClass == null || name == null) {
+            return null;
+        }
+        AccessorCache.Key key =
+                new AccessorCache.Key(targetClass, name, null, AccessorCache.KIND_RESOLVED);
+        Object cached = AccessorCache.get(key);
+        if (cached != null && ((Resolved) cached).generation == sGeneration.get()) {
+            return ((Resolved) cached).property;
+        }
+
+        // generated properties register themselves, so load them before resolving
+        for (Class c = targetClass; c != null; c = c.getSuperclass()) {
+            loadGenerated(c);
+        }
+        // read before resolving, so a registration racing with this lookup invalidates it
+        int generation = sGeneration.get();
+        Property property = null;
+        for (Class c = targetClass; c != null && property == null; c = c.getSuperclass()) {
+            property = (Property) AccessorCache.get(
+                    new AccessorCache.Key(c, name, null, AccessorCache.KIND_REGISTERED));
+        }
+        AccessorCache.replace(key, new Resolved(property, generation));
+        return property;
+    }
+
+    /**
+     * Loads the class generated for the {@link Animatable} setters of a class, if there is one,
+     * which registers its properties. Every class is only tried once.
+     */
+    private static void loadGenerated(Class hostType) {
+        ClassLoader classLoader = hostType.getClassLoader();
+        if (classLoader == null) {
+            return;
+        }
+        AccessorCache.Key key = new AccessorCache.Key(hostType, GENERATED_SUFFIX, null,
+                AccessorCache.KIND_GENERATED);
+        if (AccessorCache.get(key) != null) {
+            return;
+        }
+        Class generated;
+        try {
+            generated = Class.forName(hostType.getName() + GENERATED_SUFFIX, true, classLoader);
+        } catch (ClassNotFoundException e) {
+            // no annotated setters
+            generated = null;
+        }
+        AccessorCache.put(key, generated);
+    }
+}
@@ -13,75 +13,70 @@ class ReflectiveProperty<T, V> extends Property<T, V> {
     private static final String PREFIX_GET = "get";
     private static final String PREFIX_IS = "is";
     private static final String PREFIX_SET = "set";
-    private Method mSetter;
-    private Method mGetter;
-    private Field mField;
+    private final Method mSetter;
+    private final Method mGetter;
+    private final Field mField;
 
     public ReflectiveProperty(Class<T> propertyHolder, Class<V> valueType, String name) {
-         // TODO: cache reflection info for each new class/name pair
         super(valueType, name);
+        AccessorCache.Key key = new AccessorCache.Key(propertyHolder, name, valueType,
+                AccessorCache.KIND_PROPERTY);
+        Object cached = AccessorCache.get(key);
+        if (cached == null) {
+            cached = AccessorCache.put(key, resolve(propertyHolder, valueType, name));
+        }
+        Accessors accessors = (Accessors) cached;
+        if (accessors.mError != null) {
+            throw new NoSuchPropertyException(accessors.mError);
+        }
+        mGetter = accessors.mGetter;
+        mSetter = accessors.mSetter;
+        mField = accessors.mField;
+    }
+
+    /**
+     * Looks up the accessors of a property, recording why the property cannot be used if so.
+     */
+    private static Accessors resolve(Class propertyHolder, Class valueType, String name) {
+        Accessors accessors = new Accessors();
         char firstLetter = Character.toUpperCase(name.charAt(0));
         String theRest = name.substring(1);
         String capitalizedName = firstLetter + theRest;
-        String getterName = PREFIX_GET + capitalizedName;
-        try {
-            mGetter = propertyHolder.getMethod(getterName, (Class<?>[]) null);
-        } catch (NoSuchMethodException e) {
-            try {
-                /* The native implementation uses JNI to do reflection, which allows access to private methods.
-                 * getDeclaredMethod(..) does not find superclass methods, so it's implemented as a fallback.
-                 */
-                mGetter = propertyHolder.getDeclaredMethod(getterName, (Class<?>[]) null);
-                mGetter.setAccessible(true);
-            } catch (NoSuchMethodException e2) {
-                // getName() not available - try isName() instead
-                getterName = PREFIX_IS + capitalizedName;
-                try {
-                    mGetter = propertyHolder.getMethod(getterName, (Class<?>[]) null);
-                } catch (NoSuchMethodException e3) {
-                    try {
-                        /* The native implementation uses JNI to do reflection, which allows access to private methods.
-                         * getDeclaredMethod(..) does not find superclass methods, so it's implemented as a fallback.
-                         */
-                        mGetter = propertyHolder.getDeclaredMethod(getterName, (Class<?>[]) null);
-                        mGetter.setAccessible(true);
-                    } catch (NoSuchMethodException e4) {
-                        // Try public field instead
-                        try {
-                            mField = propertyHolder.getField(name);
-                            Class fieldType = mField.getType();
-                            if (!typesMatch(valueType, fieldType)) {
-                                throw new NoSuchPropertyException("Underlying type (" + fieldType + ") " +
-                                        "does not match Property type (" + valueType + ")");
-                            }
-                            return;
-                        } catch (NoSuchFieldException e5) {
-                            // no way to access property - throw appropriate exception
-                            throw new NoSuchPropertyException("No accessor method or field found for"
-                                    + " property with name " + name);
-                        }
-                    }
-                }
+        Method getter = AccessorCache.findMethod(propertyHolder, PREFIX_GET + capitalizedName, null);
+        if (getter == null) {
+            // getName() not available - try isName() instead
+            getter = AccessorCache.findMethod(propertyHolder, PREFIX_IS + capitalizedName, null);
+        }
+        if (getter == null) {
+            // Try public field instead
+            Field field = AccessorCache.findField(propertyHolder, name);
+            if (field == null) {
+                // no way to access property - report the appropriate exception
+                accessors.mError = "No accessor method or field found for property with name "
+                        + name;
+            } else if (!typesMatch(valueType, field.getType())) {
+                accessors.mError = "Underlying type (" + field.getType() + ") " +
+                        "does not match Property type (" + valueType + ")";
+            } else {
+                accessors.mField = field;
             }
+            return accessors;
         }
-        Class getterType = mGetter.getReturnType();
+        Class getterType = getter.getReturnType();
         // Check to make sure our getter type matches our valueType
         if (!typesMatch(valueType, getterType)) {
-            throw new NoSuchPropertyException("Underlying type (" + getterType + ") " +
-                    "does not match Property type (" + valueType + ")");
-        }
-        String setterName = PREFIX_SET + capitalizedName;
-        try {
-            // mSetter = propertyHolder.getMethod(setterName, getterType);
-            // The native implementation uses JNI to do reflection, which allows access to private methods.
-            mSetter = propertyHolder.getDeclaredMethod(setterName, getterType);
-            mSetter.setAccessible(true);
-        } catch (NoSuchMethodException ignored) {
-            // Okay to not have a setter - just a readonly property
+            accessors.mError = "Underlying type (" + getterType + ") " +
+                    "does not match Property type (" + valueType + ")";
+            return accessors;
         }
+        accessors.mGetter = getter;
+        // Okay to not have a setter - just a readonly property
+        accessors.mSetter = AccessorCache.findMethod(propertyHolder, PREFIX_SET + capitalizedName,
+                getterType);
+        return accessors;
     }
 
-    private boolean typesMatch(Class<V> valueType, Class getterType) {
+    private static boolean typesMatch(Class valueType, Class getterType) {
         if (getterType != valueType) {
             if (getterType.isPrimitive()) {
                 return (getterType == float.class && valueType == Float.class) ||
@@ -147,4 +142,14 @@ class ReflectiveProperty<T, V> extends Property<T, V> {
     public boolean isReadOnly() {
         return (mSetter == null && mField == null);
     }
+
+    /**
+     * Accessors found for a class/name/type triple, shared by the properties created for it.
+     */
+    private static final class Accessors {
+        Method mGetter;
+        Method mSetter;
+        Field mField;
+        String mError;
+    }
 }
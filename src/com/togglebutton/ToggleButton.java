@@ -12,10 +12,11 @@ import android.util.AttributeSet;
 import android.view.View;
 import com.dotools.commonui.R;
 import com.dotools.utils.UiUtils;
+import com.togglebutton.rebound.BaseSpringSystem;
+import com.togglebutton.rebound.SharedSpringSystem;
 import com.togglebutton.rebound.SimpleSpringListener;
 import com.togglebutton.rebound.Spring;
 import com.togglebutton.rebound.SpringConfig;
-import com.togglebutton.rebound.SpringSystem;
 import com.togglebutton.rebound.SpringUtil;
 
 /**
@@ -23,8 +24,17 @@ import com.togglebutton.rebound.SpringUtil;
  *
  */
 public class ToggleButton extends View{
-	private SpringSystem springSystem;
+	/** 滑块剩余移动小于该像素数时弹簧直接静止*/
+	private static final float VISUAL_REST_PIXELS = 0.5f;
+	private static final SpringConfig SPRING_CONFIG = SpringConfig.fromOrigamiTensionAndFriction(50, 7);
+	private BaseSpringSystem springSystem;
+	/** 是否使用进程共享的SpringSystem*/
+	private boolean sharedSpringSystem = true;
+	private boolean attached;
+	/** 只在依附窗口期间存在，分离时销毁，避免共享的SpringSystem里一直留着已回收View的spring*/
 	private Spring spring ;
+	/** 滑块剩余移动小于该值时弹簧直接静止，在onLayout中计算*/
+	private double visualRestThreshold;
 	/** */
 	private float radius;
     /** 开启颜色*/
@@ -81,22 +91,93 @@ public class ToggleButton extends View{
 	@Override
 	protected void onDetachedFromWindow() {
 		super.onDetachedFromWindow();
-		spring.removeListener(springListener);
+		attached = false;
+		destroySpring();
+		if (sharedSpringSystem) {
+			SharedSpringSystem.release();
+		}
 	}
 	
 	public void onAttachedToWindow() {UiUtils.dipToPx(1);
 		super.onAttachedToWindow();
+		if (sharedSpringSystem) {
+			SharedSpringSystem.acquire();
+		}
+		attached = true;
+		createSpring();
+	}
+	
+	/**
+	 * 在当前的SpringSystem中创建spring，从开关状态开始，静止在对应位置
+	 */
+	private void createSpring() {
+		spring = springSystem.createSpring();
+		spring.setSpringConfig(SPRING_CONFIG);
+		if (visualRestThreshold > 0) {
+			spring.setVisualRestThreshold(visualRestThreshold);
+		}
+		spring.setCurrentValue(toggleOn ? 1 : 0);
 		spring.addListener(springListener);
 	}
+	
+	/**
+	 * 销毁spring，滑块直接停在开关状态对应的位置
+	 */
+	private void destroySpring() {
+		if (spring == null) {
+			return;
+		}
+		spring.destroy();
+		spring = null;
+		calculateEffect(toggleOn ? 1 : 0);
+	}
+	
+	/**
+	 * 使用调用方自己的SpringSystem代替进程共享的SpringSystem，传null恢复使用共享的
+	 * @param system
+	 */
+	public void setSpringSystem(BaseSpringSystem system) {
+		if (system == null) {
+			system = SharedSpringSystem.get();
+		}
+		if (system == springSystem) {
+			return;
+		}
+		final boolean shared = system == SharedSpringSystem.get();
+		if (!attached) {
+			//未依附窗口时还没有spring，依附时会在新的SpringSystem中创建
+			springSystem = system;
+			sharedSpringSystem = shared;
+			return;
+		}
+		Spring newSpring = system.createSpring();
+		newSpring.setSpringConfig(spring.getSpringConfig());
+		newSpring.setVisualRestThreshold(spring.getVisualRestThreshold());
+		newSpring.setCurrentValue(spring.getCurrentValue());
+		newSpring.setEndValue(spring.getEndValue());
+		spring.destroy();
+		if (sharedSpringSystem) {
+			SharedSpringSystem.release();
+		}
+		if (shared) {
+			SharedSpringSystem.acquire();
+		}
+		newSpring.addListener(springListener);
+		springSystem = system;
+		sharedSpringSystem = shared;
+		spring = newSpring;
+	}
+	
+	public BaseSpringSystem getSpringSystem() {
+		return springSystem;
+	}
 
 	public void setup(AttributeSet attrs) {
 		paint = new Paint(Paint.ANTI_ALIAS_FLAG);
 		paint.setStyle(Style.FILL);
 		paint.setStrokeCap(Cap.ROUND);
 		
-		springSystem = SpringSystem.create();
-		spring = springSystem.createSpring();
-		spring.setSpringConfig(SpringConfig.fromOrigamiTensionAndFriction(50, 7));
+		springSystem = SharedSpringSystem.get();
 		
 		this.setOnClickListener(new OnClickListener() {
 			@Override
@@ -144,7 +225,10 @@ public class ToggleButton extends View{
 	}
 	
 	private void takeEffect(boolean animate) {
-		if(animate){
+		if (spring == null) {
+			//未依附窗口，没有动画，直接显示最终状态
+			calculateEffect(toggleOn ? 1 : 0);
+		}else if(animate){
 			spring.setEndValue(toggleOn ? 1 : 0);
 		}else{
 			//这里没有调用spring，所以spring里的当前值没有变更，这里要设置一下，同步两边的当前值
@@ -173,6 +257,14 @@ public class ToggleButton extends View{
 		spotSize = height - 4 * borderWidth;
 		spotX = toggleOn ? spotMaxX : spotMinX;
 		offLineWidth = 0;
+		
+		//滑块剩余移动不足半个像素时直接停止弹簧，避免不可见的微小移动一直占用动画循环
+		if (spotMaxX > spotMinX) {
+			visualRestThreshold = VISUAL_REST_PIXELS / (spotMaxX - spotMinX);
+			if (spring != null) {
+				spring.setVisualRestThreshold(visualRestThreshold);
+			}
+		}
 	}
 	
 	
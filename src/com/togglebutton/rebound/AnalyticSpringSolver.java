@@ -0,0 +1,60 @@
+package com.togglebutton.rebound;
+
+/**
+ * Closed form solution of the damped harmonic oscillator x'' = -tension * x - friction * x' with
+ * unit mass, where x is the displacement from the spring's end value. Solving for an arbitrary
+ * time step costs the same as solving for a single millisecond, so this can be used in place of
+ * the fixed step RK4 integration in {@link Spring}.
+ */
+final class AnalyticSpringSolver {
+
+  // output of the last call to solve
+  double displacement;
+  double velocity;
+
+  /**
+   * compute the displacement and velocity of the spring after the given time.
+   * The result is stored in {@link #displacement} and {@link #velocity}.
+   * @param springConfig config of the spring, providing the precomputed regime and coefficients
+   * @param startDisplacement displacement from the end value at time 0
+   * @param startVelocity velocity at time 0
+   * @param time time to solve for in seconds
+   */
+  void solve(
+      SpringConfig springConfig,
+      double startDisplacement,
+      double startVelocity,
+      double time) {
+    double decay = springConfig.decay;
+
+    if (springConfig.regime == SpringConfig.CRITICALLY_DAMPED) {
+      // critically damped: x = (a + b * t) * e^(-decay * t)
+      double a = startDisplacement;
+      double b = startVelocity + decay * startDisplacement;
+      double envelope = Math.exp(-decay * time);
+      displacement = (a + b * time) * envelope;
+      velocity = (b - decay * (a + b * time)) * envelope;
+    } else if (springConfig.regime == SpringConfig.UNDERDAMPED) {
+      // underdamped: oscillates at the damped frequency inside a decaying envelope
+      double dampedFrequency = springConfig.frequency;
+      double a = startDisplacement;
+      double b = (startVelocity + decay * startDisplacement) / dampedFrequency;
+      double envelope = Math.exp(-decay * time);
+      double cos = Math.cos(dampedFrequency * time);
+      double sin = Math.sin(dampedFrequency * time);
+      displacement = envelope * (a * cos + b * sin);
+      velocity = envelope * (startVelocity * cos - (decay * b + dampedFrequency * a) * sin);
+    } else {
+      // overdamped: sum of two decaying exponentials
+      double root = springConfig.frequency;
+      double r1 = -decay + root;
+      double r2 = -decay - root;
+      double c2 = (startVelocity - r1 * startDisplacement) / (r2 - r1);
+      double c1 = startDisplacement - c2;
+      double e1 = Math.exp(r1 * time);
+      double e2 = Math.exp(r2 * time);
+      displacement = c1 * e1 + c2 * e2;
+      velocity = c1 * r1 * e1 + c2 * r2 * e2;
+    }
+  }
+}
@@ -13,7 +13,6 @@ package com.togglebutton.rebound;
 import android.annotation.TargetApi;
 import android.os.Build;
 import android.os.Handler;
-import android.os.SystemClock;
 import android.view.Choreographer;
 
 /**
@@ -44,7 +43,7 @@ abstract class AndroidSpringLooperFactory {
     private final Handler mHandler;
     private final Runnable mLooperRunnable;
     private boolean mStarted;
-    private long mLastTime;
+    private long mLastTimeNanos;
 
     /**
      * @return an Android spring looper using a new {@link Handler} instance
@@ -61,8 +60,9 @@ abstract class AndroidSpringLooperFactory {
           if (!mStarted || mSpringSystem == null) {
             return;
           }
-          long currentTime = SystemClock.uptimeMillis();
-          mSpringSystem.loop(currentTime - mLastTime);
+          long currentTimeNanos = System.nanoTime();
+          loopSpringSystemNanos(currentTimeNanos - mLastTimeNanos);
+          mLastTimeNanos = currentTimeNanos;
           mHandler.post(mLooperRunnable);
         }
       };
@@ -74,7 +74,7 @@ abstract class AndroidSpringLooperFactory {
         return;
       }
       mStarted = true;
-      mLastTime = SystemClock.uptimeMillis();
+      mLastTimeNanos = System.nanoTime();
       mHandler.removeCallbacks(mLooperRunnable);
       mHandler.post(mLooperRunnable);
     }
@@ -88,7 +88,9 @@ abstract class AndroidSpringLooperFactory {
 
   /**
    * The Jelly Bean and up implementation of the spring looper that uses Android's
-   * {@link Choreographer} instead of a {@link Handler}
+   * {@link Choreographer} instead of a {@link Handler}. Frame deltas are taken from the vsync
+   * timestamps of the frames, so they are exact multiples of the frame interval and free of the
+   * scheduling jitter of the callback.
    */
   @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
   private static class ChoreographerAndroidSpringLooper extends SpringLooper {
@@ -96,7 +98,7 @@ abstract class AndroidSpringLooperFactory {
     private final Choreographer mChoreographer;
     private final Choreographer.FrameCallback mFrameCallback;
     private boolean mStarted;
-    private long mLastTime;
+    private long mLastFrameTimeNanos;
 
     /**
      * @return an Android spring choreographer using the system {@link Choreographer}
@@ -113,9 +115,9 @@ abstract class AndroidSpringLooperFactory {
           if (!mStarted || mSpringSystem == null) {
             return;
           }
-          long currentTime = SystemClock.uptimeMillis();
-          mSpringSystem.loop(currentTime - mLastTime);
-          mLastTime = currentTime;
+          // the first frame after start may have been timestamped before start was called
+          loopSpringSystemNanos(Math.max(0, frameTimeNanos - mLastFrameTimeNanos));
+          mLastFrameTimeNanos = frameTimeNanos;
           mChoreographer.postFrameCallback(mFrameCallback);
         }
       };
@@ -127,7 +129,8 @@ abstract class AndroidSpringLooperFactory {
         return;
       }
       mStarted = true;
-      mLastTime = SystemClock.uptimeMillis();
+      // frame times are on the System.nanoTime time base
+      mLastFrameTimeNanos = System.nanoTime();
       mChoreographer.removeFrameCallback(mFrameCallback);
       mChoreographer.postFrameCallback(mFrameCallback);
     }
@@ -11,12 +11,9 @@
 package com.togglebutton.rebound;
 
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
 
 /**
@@ -27,11 +24,55 @@ import java.util.concurrent.CopyOnWriteArraySet;
  */
 public class BaseSpringSystem {
 
-  private final Map<String, Spring> mSpringRegistry = new HashMap<String, Spring>();
-  private final Set<Spring> mActiveSprings = new CopyOnWriteArraySet<Spring>();
+  private static final int INITIAL_ACTIVE_CAPACITY = 16;
+  private static final int INITIAL_REGISTRY_CAPACITY = 16;
+  // A handle packs the registry slot of a spring in its low bits and the generation of that slot
+  // in the high bits. The generation is bumped when the spring is deregistered, so a handle kept
+  // past the destruction of its spring does not resolve to the next spring using the slot.
+  private static final int SLOT_BITS = 16;
+  private static final int SLOT_MASK = (1 << SLOT_BITS) - 1;
+  private static final int GENERATION_MASK = 0x7fff;
+  // handle of a spring that was never registered
+  static final int NO_HANDLE = -1;
+
+  private Spring[] mRegistry = new Spring[INITIAL_REGISTRY_CAPACITY];
+  private int[] mGenerations = new int[INITIAL_REGISTRY_CAPACITY];
+  private int[] mFreeSlots = new int[INITIAL_REGISTRY_CAPACITY];
+  private int mFreeSlotCount;
+  // number of registry slots handed out so far, free or not
+  private int mSlotCount;
+  // released springs waiting to be acquired again
+  private static final int DEFAULT_SPRING_POOL_CAPACITY = 32;
+  private Spring[] mSpringPool = new Spring[DEFAULT_SPRING_POOL_CAPACITY];
+  private int mSpringPoolSize;
+  private long mSpringPoolHits;
+  private long mSpringPoolMisses;
+  // Intrusive list of the active springs, each spring keeps its own slot in mActiveIndex so it
+  // can be activated and deactivated in O(1) without allocating. Springs deactivated while the
+  // system is advancing leave a null slot that is compacted once the pass is done; springs
+  // activated while advancing are appended after the end of the pass and are first advanced on
+  // the next loop.
+  private Spring[] mActiveSprings = new Spring[INITIAL_ACTIVE_CAPACITY];
+  // number of slots in use in mActiveSprings, including the null slots left while advancing
+  private int mActiveSlotCount;
+  private int mActiveSpringCount;
+  // active vector springs, kept the same way as mActiveSprings
+  private VectorSpring[] mActiveVectorSprings = new VectorSpring[INITIAL_ACTIVE_CAPACITY];
+  private int mActiveVectorSlotCount;
+  private int mActiveVectorSpringCount;
+  // every live vector spring, so they can be reached when they are not active
+  private VectorSpring[] mVectorSprings = new VectorSpring[INITIAL_ACTIVE_CAPACITY];
+  private int mVectorSpringCount;
+  private boolean mAdvancing;
+  private final ArrayList<SpringGraph> mSpringGraphs = new ArrayList<SpringGraph>();
   private final SpringLooper mSpringLooper;
   private final CopyOnWriteArraySet<SpringSystemListener> mListeners = new CopyOnWriteArraySet<SpringSystemListener>();
   private boolean mIdle = true;
+  // springs advanced in the current loop, only collected while frame listeners are registered
+  private final UpdatedSprings mUpdatedSprings = new UpdatedSprings();
+  private int mFrameListenerCount;
+  private SpringSystemMetrics mMetrics;
+  private boolean mMetricsEnabled;
 
   /**
    * create a new BaseSpringSystem
@@ -55,7 +96,8 @@ public class BaseSpringSystem {
   }
 
   /**
-   * create a spring with a random uuid for its name.
+   * create a spring with a process-unique id, see {@link Spring#getId()}. A system holds at most
+   * 65536 springs at a time; creating or acquiring more throws an IllegalStateException.
    * @return the spring
    */
   public Spring createSpring() {
@@ -65,7 +107,118 @@ public class BaseSpringSystem {
   }
 
   /**
-   * get a spring by name
+   * Get a spring from the pool of released springs, or create one if the pool is empty. The
+   * spring is in the same state as one returned by {@link #createSpring()}.
+   * @return the spring
+   */
+  public Spring acquireSpring() {
+    if (mSpringPoolSize == 0) {
+      mSpringPoolMisses++;
+      return createSpring();
+    }
+    mSpringPoolHits++;
+    Spring spring = mSpringPool[--mSpringPoolSize];
+    mSpringPool[mSpringPoolSize] = null;
+    registerSpring(spring);
+    return spring;
+  }
+
+  /**
+   * Deregister a spring and keep it for a later {@link #acquireSpring()}, or drop it if the pool
+   * is full. Its listeners are removed. Do not use the Spring after calling this, its handle and
+   * id are no longer valid.
+   * @param spring the Spring to release
+   */
+  public void releaseSpring(Spring spring) {
+    if (spring == null) {
+      throw new IllegalArgumentException("spring is required");
+    }
+    if (!isRegistered(spring)) {
+      throw new IllegalArgumentException("spring " + spring.getId() + " is not a registered spring");
+    }
+    deregisterSpring(spring);
+    spring.reset();
+    if (mSpringPoolSize < mSpringPool.length) {
+      mSpringPool[mSpringPoolSize++] = spring;
+    }
+  }
+
+  /**
+   * set the maximum number of released springs kept for reuse, dropping any above it
+   * @param capacity the pool capacity
+   */
+  public void setSpringPoolCapacity(int capacity) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("capacity must not be negative");
+    }
+    Spring[] pool = new Spring[capacity];
+    mSpringPoolSize = Math.min(mSpringPoolSize, capacity);
+    System.arraycopy(mSpringPool, 0, pool, 0, mSpringPoolSize);
+    mSpringPool = pool;
+  }
+
+  public int getSpringPoolCapacity() {
+    return mSpringPool.length;
+  }
+
+  /**
+   * @return the number of released springs currently pooled
+   */
+  public int getSpringPoolSize() {
+    return mSpringPoolSize;
+  }
+
+  /**
+   * @return the number of {@link #acquireSpring()} calls served from the pool
+   */
+  public long getSpringPoolHitCount() {
+    return mSpringPoolHits;
+  }
+
+  /**
+   * @return the number of {@link #acquireSpring()} calls that had to create a spring
+   */
+  public long getSpringPoolMissCount() {
+    return mSpringPoolMisses;
+  }
+
+  /**
+   * create a spring of several dimensions sharing one config
+   * @param dimensions number of components of the spring
+   * @return the vector spring
+   */
+  public VectorSpring createVectorSpring(int dimensions) {
+    VectorSpring vectorSpring = new VectorSpring(this, dimensions);
+    if (mVectorSpringCount == mVectorSprings.length) {
+      mVectorSprings = Arrays.copyOf(mVectorSprings, mVectorSpringCount * 2);
+    }
+    vectorSpring.mRegistryIndex = mVectorSpringCount;
+    mVectorSprings[mVectorSpringCount++] = vectorSpring;
+    return vectorSpring;
+  }
+
+  /**
+   * create a graph binding the end values of springs of this system to the positions of others,
+   * advanced in one pass per loop
+   * @return the spring graph
+   */
+  public SpringGraph createSpringGraph() {
+    SpringGraph springGraph = new SpringGraph(this);
+    mSpringGraphs.add(springGraph);
+    return springGraph;
+  }
+
+  /**
+   * forget a destroyed spring graph
+   * @param springGraph the graph to remove
+   */
+  void removeSpringGraph(SpringGraph springGraph) {
+    mSpringGraphs.remove(springGraph);
+  }
+
+  /**
+   * get a spring by name. This scans the whole registry, prefer keeping the handle of the spring
+   * and use {@link #getSpringByHandle(int)}.
    * @param id id of the spring to retrieve
    * @return Spring with the specified key
    */
@@ -73,7 +226,29 @@ public class BaseSpringSystem {
     if (id == null) {
       throw new IllegalArgumentException("id is required");
     }
-    return mSpringRegistry.get(id);
+    for (int i = 0; i < mSlotCount; i++) {
+      Spring spring = mRegistry[i];
+      if (spring != null && id.equals(spring.getId())) {
+        return spring;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * get a spring by handle
+   * @param handle handle of the spring to retrieve
+   * @return the Spring with the specified handle or null if it was destroyed
+   */
+  public Spring getSpringByHandle(int handle) {
+    if (handle < 0) {
+      return null;
+    }
+    int slot = handle & SLOT_MASK;
+    if (slot >= mSlotCount || mGenerations[slot] != handle >>> SLOT_BITS) {
+      return null;
+    }
+    return mRegistry[slot];
   }
 
   /**
@@ -81,16 +256,48 @@ public class BaseSpringSystem {
    * @return all the springs
    */
   public List<Spring> getAllSprings() {
-    Collection<Spring> collection = mSpringRegistry.values();
-    List<Spring> list;
-    if (collection instanceof List) {
-      list = (List<Spring>)collection;
-    } else {
-      list = new ArrayList<Spring>(collection);
+    List<Spring> list = new ArrayList<Spring>(mSlotCount - mFreeSlotCount);
+    for (int i = 0; i < mSlotCount; i++) {
+      if (mRegistry[i] != null) {
+        list.add(mRegistry[i]);
+      }
     }
     return Collections.unmodifiableList(list);
   }
 
+  /**
+   * Rebind every spring and vector spring using a config to another one. SpringConfig is
+   * immutable, so this is how a config is changed for the springs already using it, e.g. when
+   * tuning it live.
+   * @param oldConfig the config to replace
+   * @param newConfig the config to use instead
+   * @return the number of springs and vector springs rebound
+   */
+  public int replaceSpringConfig(SpringConfig oldConfig, SpringConfig newConfig) {
+    if (oldConfig == null) {
+      throw new IllegalArgumentException("oldConfig is required");
+    }
+    if (newConfig == null) {
+      throw new IllegalArgumentException("newConfig is required");
+    }
+    int replaced = 0;
+    for (int i = 0; i < mSlotCount; i++) {
+      Spring spring = mRegistry[i];
+      if (spring != null && spring.getSpringConfig() == oldConfig) {
+        spring.setSpringConfig(newConfig);
+        replaced++;
+      }
+    }
+    for (int i = 0; i < mVectorSpringCount; i++) {
+      VectorSpring vectorSpring = mVectorSprings[i];
+      if (vectorSpring.getSpringConfig() == oldConfig) {
+        vectorSpring.setSpringConfig(newConfig);
+        replaced++;
+      }
+    }
+    return replaced;
+  }
+
   /**
    * Registers a Spring to this BaseSpringSystem so it can be iterated if active.
    * @param spring the Spring to register
@@ -99,9 +306,26 @@ public class BaseSpringSystem {
     if (spring == null) {
       throw new IllegalArgumentException("spring is required");
     }
-    if (mSpringRegistry.containsKey(spring.getId())) {
-      throw new IllegalArgumentException("spring is already registered"); }
-    mSpringRegistry.put(spring.getId(), spring);
+    if (isRegistered(spring)) {
+      throw new IllegalArgumentException("spring is already registered");
+    }
+    int slot;
+    if (mFreeSlotCount > 0) {
+      slot = mFreeSlots[--mFreeSlotCount];
+    } else {
+      if (mSlotCount > SLOT_MASK) {
+        throw new IllegalStateException("too many springs registered");
+      }
+      if (mSlotCount == mRegistry.length) {
+        int capacity = mSlotCount * 2;
+        mRegistry = Arrays.copyOf(mRegistry, capacity);
+        mGenerations = Arrays.copyOf(mGenerations, capacity);
+        mFreeSlots = Arrays.copyOf(mFreeSlots, capacity);
+      }
+      slot = mSlotCount++;
+    }
+    mRegistry[slot] = spring;
+    spring.setHandle(mGenerations[slot] << SLOT_BITS | slot);
   }
 
   /**
@@ -114,8 +338,31 @@ public class BaseSpringSystem {
     if (spring == null) {
       throw new IllegalArgumentException("spring is required");
     }
-    mActiveSprings.remove(spring);
-    mSpringRegistry.remove(spring.getId());
+    deactivateSpring(spring);
+    if (spring.mGraph != null) {
+      spring.mGraph.removeSpring(spring);
+    }
+    if (!isRegistered(spring)) {
+      return;
+    }
+    int slot = spring.getHandle() & SLOT_MASK;
+    mRegistry[slot] = null;
+    mGenerations[slot] = (mGenerations[slot] + 1) & GENERATION_MASK;
+    mFreeSlots[mFreeSlotCount++] = slot;
+  }
+
+  /**
+   * check if a spring currently holds a slot in the registry
+   * @param spring the Spring to check
+   * @return true if the spring is registered with this system
+   */
+  private boolean isRegistered(Spring spring) {
+    int handle = spring.getHandle();
+    if (handle < 0) {
+      return false;
+    }
+    int slot = handle & SLOT_MASK;
+    return slot < mSlotCount && mRegistry[slot] == spring;
   }
 
   /**
@@ -123,27 +370,135 @@ public class BaseSpringSystem {
    * @param deltaTime delta since last update in millis
    */
   void advance(double deltaTime) {
-    for (Spring spring : mActiveSprings) {
+    SpringSystemMetrics metrics = getRecordingMetrics();
+    if (metrics != null) {
+      metrics.addActiveSprings(mActiveSpringCount + mActiveVectorSpringCount);
+    }
+    if (mFrameListenerCount > 0) {
+      mUpdatedSprings.clear();
+    }
+    mAdvancing = true;
+    int slotCount = mActiveSlotCount;
+    for (int i = 0; i < slotCount; i++) {
+      Spring spring = mActiveSprings[i];
+      // springs of a graph are advanced by their graph below
+      if (spring == null || spring.mGraph != null) {
+        continue;
+      }
       // advance time in seconds
       if (spring.systemShouldAdvance()) {
         spring.advance(deltaTime / 1000.0);
       } else {
-        mActiveSprings.remove(spring);
+        deactivateSpring(spring);
+      }
+    }
+    for (int i = 0; i < mSpringGraphs.size(); i++) {
+      mSpringGraphs.get(i).advance(deltaTime / 1000.0);
+    }
+    int vectorSlotCount = mActiveVectorSlotCount;
+    for (int i = 0; i < vectorSlotCount; i++) {
+      VectorSpring vectorSpring = mActiveVectorSprings[i];
+      if (vectorSpring == null) {
+        continue;
+      }
+      if (vectorSpring.systemShouldAdvance()) {
+        vectorSpring.advance(deltaTime / 1000.0);
+      } else {
+        deactivateVectorSpring(vectorSpring);
+      }
+    }
+    mAdvancing = false;
+    if (mActiveSpringCount != mActiveSlotCount) {
+      compactActiveSprings();
+    }
+    if (mActiveVectorSpringCount != mActiveVectorSlotCount) {
+      compactActiveVectorSprings();
+    }
+  }
+
+  /**
+   * check if springs advanced in the current loop are being recorded
+   * @return true if frame listeners are registered
+   */
+  boolean hasFrameListeners() {
+    return mFrameListenerCount > 0;
+  }
+
+  /**
+   * record a spring advanced in the current loop for the frame listeners
+   * @param spring the advanced spring
+   */
+  void recordUpdatedSpring(Spring spring) {
+    if (mFrameListenerCount > 0) {
+      mUpdatedSprings.add(spring);
+    }
+  }
+
+  /**
+   * record a batch spring advanced in the current loop for the frame listeners
+   * @param handle the handle of the advanced batch spring
+   */
+  void recordUpdatedBatchSpring(int handle) {
+    if (mFrameListenerCount > 0) {
+      mUpdatedSprings.addBatchSpring(handle);
+    }
+  }
+
+  /**
+   * hand the springs advanced in this loop to the frame listeners
+   */
+  private void notifySpringsUpdated() {
+    if (mFrameListenerCount == 0 || mUpdatedSprings.isEmpty()) {
+      return;
+    }
+    for (SpringSystemListener listener : mListeners) {
+      if (listener instanceof SpringSystemFrameListener) {
+        ((SpringSystemFrameListener) listener).onSpringsUpdated(this, mUpdatedSprings);
       }
     }
   }
 
+  /**
+   * check if any spring still needs to be advanced by the looper
+   * @return true if there are active springs
+   */
+  boolean hasActiveSprings() {
+    return mActiveSpringCount > 0 || mActiveVectorSpringCount > 0;
+  }
+
+  /**
+   * get the number of springs that are currently being advanced
+   * @return the active spring count
+   */
+  public int getActiveSpringCount() {
+    return mActiveSpringCount;
+  }
+
+  /**
+   * get the number of vector springs that are currently being advanced
+   * @return the active vector spring count
+   */
+  public int getActiveVectorSpringCount() {
+    return mActiveVectorSpringCount;
+  }
+
   /**
    * loop the system until idle
    */
   public void loop(double ellapsedMillis) {
+    SpringSystemMetrics metrics = getRecordingMetrics();
+    if (metrics != null) {
+      loopWithMetrics(ellapsedMillis, metrics);
+      return;
+    }
     for (SpringSystemListener listener : mListeners) {
       listener.onBeforeIntegrate(this);
     }
     advance(ellapsedMillis);
-    if (mActiveSprings.isEmpty()) {
+    if (!hasActiveSprings()) {
       mIdle = true;
     }
+    notifySpringsUpdated();
     for (SpringSystemListener listener : mListeners) {
       listener.onAfterIntegrate(this);
     }
@@ -152,42 +507,299 @@ public class BaseSpringSystem {
     }
   }
 
+  /**
+   * same as {@link #loop(double)}, timing the loop and the listener dispatch into the metrics
+   */
+  private void loopWithMetrics(double ellapsedMillis, SpringSystemMetrics metrics) {
+    long loopStart = System.nanoTime();
+    metrics.beginFrame();
+    for (SpringSystemListener listener : mListeners) {
+      listener.onBeforeIntegrate(this);
+    }
+    long advanceStart = System.nanoTime();
+    metrics.addListenerNanos(advanceStart - loopStart);
+    advance(ellapsedMillis);
+    if (!hasActiveSprings()) {
+      mIdle = true;
+    }
+    long advanceEnd = System.nanoTime();
+    notifySpringsUpdated();
+    for (SpringSystemListener listener : mListeners) {
+      listener.onAfterIntegrate(this);
+    }
+    long loopEnd = System.nanoTime();
+    metrics.addListenerNanos(loopEnd - advanceEnd);
+    metrics.endFrame(this, loopEnd - loopStart);
+    if (mIdle) {
+      mSpringLooper.stop();
+    }
+  }
+
+  /**
+   * Enable or disable the collection of per-loop metrics. Nothing is measured while disabled.
+   * @param enabled whether to collect metrics
+   */
+  public void setMetricsEnabled(boolean enabled) {
+    if (enabled && mMetrics == null) {
+      mMetrics = new SpringSystemMetrics();
+    }
+    mMetricsEnabled = enabled;
+  }
+
+  /**
+   * check if per-loop metrics are collected
+   * @return true if metrics are enabled
+   */
+  public boolean isMetricsEnabled() {
+    return mMetricsEnabled;
+  }
+
+  /**
+   * get the metrics collected by this system. They are kept when metrics get disabled.
+   * @return the metrics, null if they were never enabled
+   */
+  public SpringSystemMetrics getMetrics() {
+    return mMetrics;
+  }
+
+  /**
+   * get the looper running this system, e.g. to record the frames of a system created with
+   * {@link SpringSystem#create()} or shared through {@link SharedSpringSystem}
+   * @return the spring looper
+   */
+  public SpringLooper getSpringLooper() {
+    return mSpringLooper;
+  }
+
+  /**
+   * Record the delta of every frame the looper of this system runs into a trace, or stop
+   * recording when null, see {@link SpringLooper#setFrameTimeTrace(FrameTimeTrace)}.
+   * @param frameTimeTrace the trace to append to
+   */
+  public void setFrameTimeTrace(FrameTimeTrace frameTimeTrace) {
+    mSpringLooper.setFrameTimeTrace(frameTimeTrace);
+  }
+
+  /**
+   * @return the number of frames timed by the looper of this system
+   */
+  public long getFrameCount() {
+    return mSpringLooper.getFrameCount();
+  }
+
+  /**
+   * @return the number of frames of this system that came after one or more skipped frames
+   */
+  public long getJankFrameCount() {
+    return mSpringLooper.getJankFrameCount();
+  }
+
+  /**
+   * @return the total number of frame intervals skipped between the frames of this system
+   */
+  public long getSkippedFrameCount() {
+    return mSpringLooper.getSkippedFrameCount();
+  }
+
+  /**
+   * clear the frame, jank and skipped frame counters of the looper of this system
+   */
+  public void resetFrameStats() {
+    mSpringLooper.resetFrameStats();
+  }
+
+  /**
+   * @return the metrics to record the current loop into, null when metrics are disabled
+   */
+  SpringSystemMetrics getRecordingMetrics() {
+    return mMetricsEnabled ? mMetrics : null;
+  }
+
   /**
    * This is used internally by the {@link Spring}s created by this {@link BaseSpringSystem} to notify
    * it has reached a state where it needs to be iterated. This will add the spring to the list of
    * active springs on this system and start the iteration if the system was idle before this call.
-   * @param springId the id of the Spring to be activated
+   * @param spring the Spring to be activated
    */
-  void activateSpring(String springId) {
-    Spring spring = mSpringRegistry.get(springId);
-    if (spring == null) {
-      throw new IllegalArgumentException("springId " + springId + " does not reference a registered spring");
+  void activateSpring(Spring spring) {
+    if (!isRegistered(spring)) {
+      throw new IllegalArgumentException("spring " + spring.getId() + " is not a registered spring");
+    }
+    if (spring.mActiveIndex < 0) {
+      if (mActiveSlotCount == mActiveSprings.length) {
+        mActiveSprings = Arrays.copyOf(mActiveSprings, mActiveSlotCount * 2);
+      }
+      spring.mActiveIndex = mActiveSlotCount;
+      mActiveSprings[mActiveSlotCount++] = spring;
+      mActiveSpringCount++;
+    }
+    if (getIsIdle()) {
+      mIdle = false;
+      mSpringLooper.start();
+    }
+  }
+
+  /**
+   * remove a spring from the active list. Outside of {@link #advance(double)} the last active
+   * spring is moved into its slot, during it the slot is cleared and compacted afterwards.
+   * @param spring the Spring to deactivate
+   */
+  void deactivateSpring(Spring spring) {
+    int index = spring.mActiveIndex;
+    if (index < 0) {
+      return;
+    }
+    spring.mActiveIndex = -1;
+    mActiveSpringCount--;
+    if (mAdvancing) {
+      mActiveSprings[index] = null;
+      return;
+    }
+    Spring last = mActiveSprings[--mActiveSlotCount];
+    mActiveSprings[mActiveSlotCount] = null;
+    if (last != spring) {
+      mActiveSprings[index] = last;
+      last.mActiveIndex = index;
+    }
+  }
+
+  /**
+   * remove the null slots left by springs deactivated during {@link #advance(double)}, keeping
+   * the order of the remaining springs
+   */
+  private void compactActiveSprings() {
+    int count = 0;
+    for (int i = 0; i < mActiveSlotCount; i++) {
+      Spring spring = mActiveSprings[i];
+      if (spring != null) {
+        spring.mActiveIndex = count;
+        mActiveSprings[count++] = spring;
+      }
+    }
+    for (int i = count; i < mActiveSlotCount; i++) {
+      mActiveSprings[i] = null;
+    }
+    mActiveSlotCount = count;
+  }
+
+  /**
+   * add a vector spring to the active list and start the iteration if the system was idle
+   * @param vectorSpring the VectorSpring to activate
+   */
+  void activateVectorSpring(VectorSpring vectorSpring) {
+    if (vectorSpring.mActiveIndex < 0) {
+      if (mActiveVectorSlotCount == mActiveVectorSprings.length) {
+        mActiveVectorSprings = Arrays.copyOf(mActiveVectorSprings, mActiveVectorSlotCount * 2);
+      }
+      vectorSpring.mActiveIndex = mActiveVectorSlotCount;
+      mActiveVectorSprings[mActiveVectorSlotCount++] = vectorSpring;
+      mActiveVectorSpringCount++;
     }
-    mActiveSprings.add(spring);
     if (getIsIdle()) {
       mIdle = false;
       mSpringLooper.start();
     }
   }
 
+  /**
+   * remove a vector spring from the active list, see {@link #deactivateSpring(Spring)}
+   * @param vectorSpring the VectorSpring to deactivate
+   */
+  void deactivateVectorSpring(VectorSpring vectorSpring) {
+    int index = vectorSpring.mActiveIndex;
+    if (index < 0) {
+      return;
+    }
+    vectorSpring.mActiveIndex = -1;
+    mActiveVectorSpringCount--;
+    if (mAdvancing) {
+      mActiveVectorSprings[index] = null;
+      return;
+    }
+    VectorSpring last = mActiveVectorSprings[--mActiveVectorSlotCount];
+    mActiveVectorSprings[mActiveVectorSlotCount] = null;
+    if (last != vectorSpring) {
+      mActiveVectorSprings[index] = last;
+      last.mActiveIndex = index;
+    }
+  }
+
+  /**
+   * forget a destroyed vector spring
+   * @param vectorSpring the VectorSpring to remove
+   */
+  void unregisterVectorSpring(VectorSpring vectorSpring) {
+    int index = vectorSpring.mRegistryIndex;
+    if (index < 0) {
+      return;
+    }
+    vectorSpring.mRegistryIndex = -1;
+    VectorSpring last = mVectorSprings[--mVectorSpringCount];
+    mVectorSprings[mVectorSpringCount] = null;
+    if (last != vectorSpring) {
+      mVectorSprings[index] = last;
+      last.mRegistryIndex = index;
+    }
+  }
+
+  private void compactActiveVectorSprings() {
+    int count = 0;
+    for (int i = 0; i < mActiveVectorSlotCount; i++) {
+      VectorSpring vectorSpring = mActiveVectorSprings[i];
+      if (vectorSpring != null) {
+        vectorSpring.mActiveIndex = count;
+        mActiveVectorSprings[count++] = vectorSpring;
+      }
+    }
+    for (int i = count; i < mActiveVectorSlotCount; i++) {
+      mActiveVectorSprings[i] = null;
+    }
+    mActiveVectorSlotCount = count;
+  }
+
+  /**
+   * Stop the looper without touching the springs. Active springs keep their state and are picked
+   * up again by {@link #resumeLooper()} or the next spring activation.
+   */
+  void stopLooper() {
+    mIdle = true;
+    mSpringLooper.stop();
+  }
+
+  /**
+   * Restart the looper if there are springs left active by {@link #stopLooper()}.
+   */
+  void resumeLooper() {
+    if (getIsIdle() && hasActiveSprings()) {
+      mIdle = false;
+      mSpringLooper.start();
+    }
+  }
+
   /** listeners **/
 
   public void addListener(SpringSystemListener newListener) {
     if (newListener == null) {
       throw new IllegalArgumentException("newListener is required");
     }
-    mListeners.add(newListener);
+    if (mListeners.add(newListener) && newListener instanceof SpringSystemFrameListener) {
+      mFrameListenerCount++;
+    }
   }
 
   public void removeListener(SpringSystemListener listenerToRemove) {
     if (listenerToRemove == null) {
       throw new IllegalArgumentException("listenerToRemove is required");
     }
-    mListeners.remove(listenerToRemove);
+    if (mListeners.remove(listenerToRemove) &&
+        listenerToRemove instanceof SpringSystemFrameListener) {
+      mFrameListenerCount--;
+    }
   }
 
   public void removeAllListeners() {
     mListeners.clear();
+    mFrameListenerCount = 0;
   }
 }
 
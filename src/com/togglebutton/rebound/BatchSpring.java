@@ -0,0 +1,179 @@
+package com.togglebutton.rebound;
+
+/**
+ * {@link Spring} view of a spring simulated by a {@link BatchSpringSystem}. It holds no physics
+ * state of its own; the accessors read and write the packed arrays of the system and it is never
+ * registered with or advanced by the system as a regular Spring. Settings that batch springs do
+ * not have throw UnsupportedOperationException instead of being silently ignored.
+ */
+final class BatchSpring extends Spring {
+
+  private final BatchSpringSystem mBatchSystem;
+  private final int mBatchHandle;
+
+  BatchSpring(BatchSpringSystem batchSystem, int handle) {
+    super(batchSystem);
+    mBatchSystem = batchSystem;
+    mBatchHandle = handle;
+  }
+
+  @Override
+  public void destroy() {
+    mBatchSystem.destroyBatchSpring(mBatchHandle);
+  }
+
+  @Override
+  public Spring setSpringConfig(SpringConfig springConfig) {
+    // called from the Spring constructor before the view is bound to its handle
+    if (mBatchSystem == null) {
+      return super.setSpringConfig(springConfig);
+    }
+    mBatchSystem.setSpringConfig(mBatchHandle, springConfig);
+    return this;
+  }
+
+  @Override
+  public SpringConfig getSpringConfig() {
+    return mBatchSystem.getSpringConfig(mBatchHandle);
+  }
+
+  @Override
+  public Spring setCurrentValue(double currentValue) {
+    mBatchSystem.setCurrentValue(mBatchHandle, currentValue);
+    return this;
+  }
+
+  @Override
+  public double getCurrentValue() {
+    return mBatchSystem.getCurrentValue(mBatchHandle);
+  }
+
+  @Override
+  public double getStartValue() {
+    return mBatchSystem.getStartValue(mBatchHandle);
+  }
+
+  @Override
+  public double getCurrentDisplacementDistance() {
+    return Math.abs(getEndValue() - getCurrentValue());
+  }
+
+  @Override
+  public Spring setEndValue(double endValue) {
+    mBatchSystem.setEndValue(mBatchHandle, endValue);
+    return this;
+  }
+
+  @Override
+  public double getEndValue() {
+    return mBatchSystem.getEndValue(mBatchHandle);
+  }
+
+  @Override
+  public Spring setVelocity(double velocity) {
+    mBatchSystem.setVelocity(mBatchHandle, velocity);
+    return this;
+  }
+
+  @Override
+  public double getVelocity() {
+    return mBatchSystem.getVelocity(mBatchHandle);
+  }
+
+  @Override
+  public Spring setRestSpeedThreshold(double restSpeedThreshold) {
+    throw new UnsupportedOperationException(
+        "batch springs share the rest thresholds of their system");
+  }
+
+  @Override
+  public double getRestSpeedThreshold() {
+    return mBatchSystem.getRestSpeedThreshold();
+  }
+
+  @Override
+  public Spring setRestDisplacementThreshold(double displacementFromRestThreshold) {
+    throw new UnsupportedOperationException(
+        "batch springs share the rest thresholds of their system");
+  }
+
+  @Override
+  public double getRestDisplacementThreshold() {
+    return mBatchSystem.getRestDisplacementThreshold();
+  }
+
+  @Override
+  public Spring setOvershootClampingEnabled(boolean overshootClampingEnabled) {
+    if (overshootClampingEnabled) {
+      throw new UnsupportedOperationException("batch springs do not clamp overshoot");
+    }
+    return this;
+  }
+
+  @Override
+  public boolean isOvershootClampingEnabled() {
+    return false;
+  }
+
+  @Override
+  public Spring setAnalyticSolverEnabled(boolean analyticSolverEnabled) {
+    if (analyticSolverEnabled) {
+      throw new UnsupportedOperationException("batch springs are always integrated with RK4");
+    }
+    return this;
+  }
+
+  @Override
+  public boolean isAnalyticSolverEnabled() {
+    return false;
+  }
+
+  @Override
+  public Spring setVisualRestThreshold(double visualRestThreshold) {
+    if (visualRestThreshold > 0) {
+      throw new UnsupportedOperationException("batch springs have no visual rest threshold");
+    }
+    return this;
+  }
+
+  @Override
+  public double getVisualRestThreshold() {
+    return 0;
+  }
+
+  @Override
+  public double getRemainingMotion() {
+    return mBatchSystem.getRemainingMotion(mBatchHandle);
+  }
+
+  @Override
+  public double getEstimatedTimeToRest() {
+    return mBatchSystem.getEstimatedTimeToRest(mBatchHandle);
+  }
+
+  @Override
+  public boolean isOvershooting() {
+    return mBatchSystem.isOvershooting(mBatchHandle);
+  }
+
+  @Override
+  public boolean wasAtRest() {
+    return mBatchSystem.wasAtRest(mBatchHandle);
+  }
+
+  @Override
+  public boolean isAtRest() {
+    return mBatchSystem.isAtRest(mBatchHandle);
+  }
+
+  @Override
+  public Spring setAtRest() {
+    mBatchSystem.setAtRest(mBatchHandle);
+    return this;
+  }
+
+  @Override
+  public boolean currentValueIsApproximately(double value) {
+    return Math.abs(getCurrentValue() - value) <= mBatchSystem.getRestDisplacementThreshold();
+  }
+}
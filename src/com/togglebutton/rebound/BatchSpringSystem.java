@@ -0,0 +1,537 @@
+package com.togglebutton.rebound;
+
+import java.util.Arrays;
+
+/**
+ * BatchSpringSystem is a {@link BaseSpringSystem} that can additionally simulate large numbers of
+ * lightweight springs, e.g. for particle style effects. Batch springs are addressed by int handles
+ * instead of {@link Spring} objects and their state is kept in packed arrays, one per field, so
+ * that all active batch springs are integrated in a single tight loop per frame.
+ *
+ * Batch springs share the rest thresholds of the system and are always integrated with RK4,
+ * without overshoot clamping or a visual rest threshold. Listeners are regular
+ * {@link SpringListener}s; the Spring passed to them is a view of the batch spring that reads and
+ * writes its state here and throws UnsupportedOperationException for the settings batch springs
+ * do not have. Springs created with {@link #createSpring()} keep working alongside the batch
+ * springs.
+ */
+public class BatchSpringSystem extends BaseSpringSystem {
+
+  // maximum amount of time to simulate per physics iteration in seconds (4 frames at 60 FPS)
+  private static final double MAX_DELTA_TIME_SEC = 0.064;
+  // fixed timestep to use in the physics solver in seconds
+  private static final double SOLVER_TIMESTEP_SEC = PhysicsState.SOLVER_TIMESTEP_SEC;
+  private static final int INITIAL_CAPACITY = 16;
+
+  // packed physics state, indexed by handle
+  private double[] mPosition = new double[INITIAL_CAPACITY];
+  private double[] mVelocity = new double[INITIAL_CAPACITY];
+  private double[] mStartValue = new double[INITIAL_CAPACITY];
+  private double[] mEndValue = new double[INITIAL_CAPACITY];
+  private double[] mTension = new double[INITIAL_CAPACITY];
+  private double[] mFriction = new double[INITIAL_CAPACITY];
+  private SpringConfig[] mSpringConfig = new SpringConfig[INITIAL_CAPACITY];
+  // position of the handle in mActive, -1 if at rest
+  private int[] mActiveIndex = new int[INITIAL_CAPACITY];
+  // whether the spring has left its resting state and is waiting for onSpringAtRest
+  private boolean[] mMoving = new boolean[INITIAL_CAPACITY];
+  private boolean[] mAllocated = new boolean[INITIAL_CAPACITY];
+  // lazily created Spring views for handles that have listeners
+  private BatchSpring[] mViews = new BatchSpring[INITIAL_CAPACITY];
+
+  private int[] mActive = new int[INITIAL_CAPACITY];
+  private int mActiveCount;
+  private int[] mFreeHandles = new int[INITIAL_CAPACITY];
+  private int mFreeCount;
+  private int mHandleCount;
+  private int mSpringCount;
+
+  // handles with listeners to notify after the integration pass
+  private int[] mDispatch = new int[INITIAL_CAPACITY];
+  private byte[] mDispatchFlags = new byte[INITIAL_CAPACITY];
+  private int mDispatchCount;
+  private static final byte DISPATCH_ACTIVATE = 1;
+  private static final byte DISPATCH_AT_REST = 2;
+
+  private double mTimeAccumulator;
+  // scratch state each batch spring is integrated in
+  private final PhysicsState mState = new PhysicsState();
+  private double mRestSpeedThreshold = 0.005;
+  private double mDisplacementFromRestThreshold = 0.005;
+
+  /**
+   * Create a new BatchSpringSystem providing the appropriate constructor parameters to work
+   * properly in an Android environment.
+   * @return the BatchSpringSystem
+   */
+  public static BatchSpringSystem create() {
+    return new BatchSpringSystem(AndroidSpringLooperFactory.createSpringLooper());
+  }
+
+  /**
+   * create a new BatchSpringSystem
+   * @param springLooper parameterized springLooper to allow testability of the
+   *        physics loop
+   */
+  public BatchSpringSystem(SpringLooper springLooper) {
+    super(springLooper);
+  }
+
+  /**
+   * create a batch spring at rest at 0 using the given config
+   * @param springConfig config for the spring
+   * @return the handle of the new spring
+   */
+  public int createBatchSpring(SpringConfig springConfig) {
+    if (springConfig == null) {
+      throw new IllegalArgumentException("springConfig is required");
+    }
+    int handle;
+    if (mFreeCount > 0) {
+      handle = mFreeHandles[--mFreeCount];
+    } else {
+      if (mHandleCount == mPosition.length) {
+        resize(mHandleCount * 2);
+      }
+      handle = mHandleCount++;
+    }
+    mPosition[handle] = 0;
+    mVelocity[handle] = 0;
+    mStartValue[handle] = 0;
+    mEndValue[handle] = 0;
+    mSpringConfig[handle] = springConfig;
+    mTension[handle] = springConfig.tension;
+    mFriction[handle] = springConfig.friction;
+    mActiveIndex[handle] = -1;
+    mMoving[handle] = false;
+    mAllocated[handle] = true;
+    mSpringCount++;
+    return handle;
+  }
+
+  /**
+   * Destroy a batch spring. Its listeners are dropped and the handle may be reused by a later
+   * {@link #createBatchSpring(SpringConfig)}.
+   * @param handle handle of the spring to destroy
+   */
+  public void destroyBatchSpring(int handle) {
+    checkHandle(handle);
+    deactivate(handle);
+    if (mViews[handle] != null) {
+      mViews[handle].removeAllListeners();
+      mViews[handle] = null;
+    }
+    mSpringConfig[handle] = null;
+    mAllocated[handle] = false;
+    mFreeHandles[mFreeCount++] = handle;
+    mSpringCount--;
+  }
+
+  /**
+   * get the number of live batch springs
+   * @return the batch spring count
+   */
+  public int getBatchSpringCount() {
+    return mSpringCount;
+  }
+
+  /**
+   * get the number of batch springs that are currently being integrated
+   * @return the active batch spring count
+   */
+  public int getActiveBatchSpringCount() {
+    return mActiveCount;
+  }
+
+  public BatchSpringSystem setSpringConfig(int handle, SpringConfig springConfig) {
+    checkHandle(handle);
+    if (springConfig == null) {
+      throw new IllegalArgumentException("springConfig is required");
+    }
+    mSpringConfig[handle] = springConfig;
+    mTension[handle] = springConfig.tension;
+    mFriction[handle] = springConfig.friction;
+    return this;
+  }
+
+  public SpringConfig getSpringConfig(int handle) {
+    checkHandle(handle);
+    return mSpringConfig[handle];
+  }
+
+  @Override
+  public int replaceSpringConfig(SpringConfig oldConfig, SpringConfig newConfig) {
+    int replaced = super.replaceSpringConfig(oldConfig, newConfig);
+    for (int handle = 0; handle < mHandleCount; handle++) {
+      if (mAllocated[handle] && mSpringConfig[handle] == oldConfig) {
+        setSpringConfig(handle, newConfig);
+        replaced++;
+      }
+    }
+    return replaced;
+  }
+
+  /**
+   * set the current value of a batch spring, see {@link Spring#setCurrentValue(double)}
+   * @param handle handle of the spring
+   * @param currentValue the new current value
+   * @return this system for chaining
+   */
+  public BatchSpringSystem setCurrentValue(int handle, double currentValue) {
+    checkHandle(handle);
+    mStartValue[handle] = currentValue;
+    mPosition[handle] = currentValue;
+    activate(handle);
+    if (mViews[handle] != null) {
+      mViews[handle].notifyUpdate();
+    }
+    return this;
+  }
+
+  public double getCurrentValue(int handle) {
+    checkHandle(handle);
+    return mPosition[handle];
+  }
+
+  /**
+   * get the value of a batch spring when its current or end value was last set, see
+   * {@link Spring#getStartValue()}
+   * @param handle handle of the spring
+   * @return the start value
+   */
+  public double getStartValue(int handle) {
+    checkHandle(handle);
+    return mStartValue[handle];
+  }
+
+  /**
+   * set the end value of a batch spring, see {@link Spring#setEndValue(double)}
+   * @param handle handle of the spring
+   * @param endValue the new end value
+   * @return this system for chaining
+   */
+  public BatchSpringSystem setEndValue(int handle, double endValue) {
+    checkHandle(handle);
+    if (mEndValue[handle] == endValue && isAtRest(handle)) {
+      return this;
+    }
+    mStartValue[handle] = mPosition[handle];
+    mEndValue[handle] = endValue;
+    activate(handle);
+    if (mViews[handle] != null) {
+      mViews[handle].notifyEndStateChange();
+    }
+    return this;
+  }
+
+  public double getEndValue(int handle) {
+    checkHandle(handle);
+    return mEndValue[handle];
+  }
+
+  public BatchSpringSystem setVelocity(int handle, double velocity) {
+    checkHandle(handle);
+    mVelocity[handle] = velocity;
+    activate(handle);
+    return this;
+  }
+
+  public double getVelocity(int handle) {
+    checkHandle(handle);
+    return mVelocity[handle];
+  }
+
+  /**
+   * check if a batch spring is within the rest thresholds of the system
+   * @param handle handle of the spring
+   * @return is the spring at rest
+   */
+  public boolean isAtRest(int handle) {
+    checkHandle(handle);
+    return Math.abs(mVelocity[handle]) <= mRestSpeedThreshold &&
+        Math.abs(mEndValue[handle] - mPosition[handle]) <= mDisplacementFromRestThreshold;
+  }
+
+  /**
+   * bring a batch spring to rest where it is, see {@link Spring#setAtRest()}
+   * @param handle handle of the spring
+   * @return this system for chaining
+   */
+  public BatchSpringSystem setAtRest(int handle) {
+    checkHandle(handle);
+    mEndValue[handle] = mPosition[handle];
+    mVelocity[handle] = 0;
+    return this;
+  }
+
+  /**
+   * check if a batch spring is past its end value, see {@link Spring#isOvershooting()}
+   * @param handle handle of the spring
+   * @return true if the spring is overshooting its end value
+   */
+  public boolean isOvershooting(int handle) {
+    checkHandle(handle);
+    double start = mStartValue[handle];
+    double end = mEndValue[handle];
+    double position = mPosition[handle];
+    return (start < end && position > end) || (start > end && position < end);
+  }
+
+  /**
+   * get how far a batch spring can still get from its end value, see
+   * {@link Spring#getRemainingMotion()}
+   * @param handle handle of the spring
+   * @return the largest displacement the spring can still reach
+   */
+  public double getRemainingMotion(int handle) {
+    checkHandle(handle);
+    return Spring.getRemainingMotion(mSpringConfig[handle],
+        mEndValue[handle] - mPosition[handle], mVelocity[handle]);
+  }
+
+  /**
+   * estimate the time a batch spring takes to come to rest, see
+   * {@link Spring#getEstimatedTimeToRest()}
+   * @param handle handle of the spring
+   * @return the estimated time to rest in seconds, infinite if the spring never settles
+   */
+  public double getEstimatedTimeToRest(int handle) {
+    checkHandle(handle);
+    return Spring.getEstimatedTimeToRest(mSpringConfig[handle],
+        mEndValue[handle] - mPosition[handle], mVelocity[handle], mRestSpeedThreshold,
+        mDisplacementFromRestThreshold, 0);
+  }
+
+  /**
+   * check if a batch spring moved since it last came to rest, see {@link Spring#wasAtRest()}
+   * @param handle handle of the spring
+   * @return true if the spring was at rest after the last advance
+   */
+  public boolean wasAtRest(int handle) {
+    checkHandle(handle);
+    return !mMoving[handle];
+  }
+
+  /**
+   * Sets the speed at which batch springs should be considered at rest.
+   * @param restSpeedThreshold speed pixels per second
+   * @return this system for chaining
+   */
+  public BatchSpringSystem setRestSpeedThreshold(double restSpeedThreshold) {
+    mRestSpeedThreshold = restSpeedThreshold;
+    return this;
+  }
+
+  public double getRestSpeedThreshold() {
+    return mRestSpeedThreshold;
+  }
+
+  /**
+   * set the threshold of displacement from rest below which batch springs should be considered
+   * at rest
+   * @param displacementFromRestThreshold displacement to consider resting below
+   * @return this system for chaining
+   */
+  public BatchSpringSystem setRestDisplacementThreshold(double displacementFromRestThreshold) {
+    mDisplacementFromRestThreshold = displacementFromRestThreshold;
+    return this;
+  }
+
+  public double getRestDisplacementThreshold() {
+    return mDisplacementFromRestThreshold;
+  }
+
+  /**
+   * add a listener to a batch spring
+   * @param handle handle of the spring
+   * @param newListener to add
+   */
+  public void addListener(int handle, SpringListener newListener) {
+    getSpringView(handle).addListener(newListener);
+  }
+
+  /**
+   * remove a listener from a batch spring
+   * @param handle handle of the spring
+   * @param listenerToRemove to remove
+   */
+  public void removeListener(int handle, SpringListener listenerToRemove) {
+    checkHandle(handle);
+    if (mViews[handle] != null) {
+      mViews[handle].removeListener(listenerToRemove);
+    }
+  }
+
+  /**
+   * get the {@link Spring} view of a batch spring, the same instance its listeners are called
+   * with. Setting rest thresholds on it, or enabling overshoot clamping, the analytic solver or a
+   * visual rest threshold, throws UnsupportedOperationException.
+   * @param handle handle of the spring
+   * @return the Spring view
+   */
+  public Spring getSpringView(int handle) {
+    checkHandle(handle);
+    BatchSpring view = mViews[handle];
+    if (view == null) {
+      view = new BatchSpring(this, handle);
+      mViews[handle] = view;
+    }
+    return view;
+  }
+
+  @Override
+  void advance(double deltaTime) {
+    super.advance(deltaTime);
+    if (mActiveCount > 0) {
+      advanceBatch(deltaTime / 1000.0);
+    }
+  }
+
+  @Override
+  boolean hasActiveSprings() {
+    return mActiveCount > 0 || super.hasActiveSprings();
+  }
+
+  /**
+   * Integrate all active batch springs with the same fixed step RK4 and remainder interpolation as
+   * {@link Spring}. Listeners are notified only after all springs have been integrated, so they
+   * can freely create, destroy or activate batch springs.
+   * @param realDeltaTime time to simulate in seconds
+   */
+  private void advanceBatch(double realDeltaTime) {
+    mTimeAccumulator += Math.min(realDeltaTime, MAX_DELTA_TIME_SEC);
+    int steps = PhysicsState.countSteps(mTimeAccumulator);
+    mTimeAccumulator -= steps * SOLVER_TIMESTEP_SEC;
+
+    SpringSystemMetrics metrics = getRecordingMetrics();
+    if (metrics != null) {
+      metrics.addActiveSprings(mActiveCount);
+      metrics.addIterations(steps * mActiveCount);
+      if (realDeltaTime > MAX_DELTA_TIME_SEC) {
+        metrics.addClampedSprings(mActiveCount);
+      }
+    }
+
+    final double[] positions = mPosition;
+    final double[] velocities = mVelocity;
+    final double[] endValues = mEndValue;
+    final double[] tensions = mTension;
+    final double[] frictions = mFriction;
+    final double restSpeed = mRestSpeedThreshold;
+    final double restDisplacement = mDisplacementFromRestThreshold;
+    final double alpha = mTimeAccumulator / SOLVER_TIMESTEP_SEC;
+    final PhysicsState state = mState;
+    // frame listeners are handed the handles, so no Spring view is needed for them
+    final boolean recordUpdates = hasFrameListeners();
+
+    int k = 0;
+    while (k < mActiveCount) {
+      int handle = mActive[k];
+      double endValue = endValues[handle];
+      state.position = positions[handle];
+      state.velocity = velocities[handle];
+      PhysicsState.integrate(state, steps, alpha, endValue, tensions[handle], frictions[handle]);
+      double position = state.position;
+      double velocity = state.velocity;
+
+      boolean isAtRest = Math.abs(velocity) <= restSpeed &&
+          Math.abs(endValue - position) <= restDisplacement;
+      if (isAtRest) {
+        position = endValue;
+        velocity = 0;
+      }
+      positions[handle] = position;
+      velocities[handle] = velocity;
+
+      if (recordUpdates) {
+        recordUpdatedBatchSpring(handle);
+      }
+      if (mViews[handle] != null) {
+        byte flags = 0;
+        if (!mMoving[handle]) {
+          flags |= DISPATCH_ACTIVATE;
+        }
+        if (isAtRest) {
+          flags |= DISPATCH_AT_REST;
+        }
+        mDispatch[mDispatchCount] = handle;
+        mDispatchFlags[mDispatchCount] = flags;
+        mDispatchCount++;
+      }
+      mMoving[handle] = !isAtRest;
+
+      if (isAtRest) {
+        // swap the last active spring into this slot and process it next
+        removeActive(k);
+      } else {
+        k++;
+      }
+    }
+
+    int dispatchCount = mDispatchCount;
+    mDispatchCount = 0;
+    long dispatchStart = metrics != null ? System.nanoTime() : 0;
+    for (int i = 0; i < dispatchCount; i++) {
+      int handle = mDispatch[i];
+      BatchSpring view = mViews[handle];
+      if (view != null) {
+        byte flags = mDispatchFlags[i];
+        view.notifyAdvance(
+            (flags & DISPATCH_ACTIVATE) != 0,
+            (flags & DISPATCH_AT_REST) != 0);
+      }
+    }
+    if (metrics != null) {
+      metrics.addListenerNanos(System.nanoTime() - dispatchStart);
+    }
+  }
+
+  private void activate(int handle) {
+    if (mActiveIndex[handle] < 0) {
+      mActiveIndex[handle] = mActiveCount;
+      mActive[mActiveCount++] = handle;
+      resumeLooper();
+    }
+  }
+
+  private void deactivate(int handle) {
+    int index = mActiveIndex[handle];
+    if (index >= 0) {
+      removeActive(index);
+    }
+    mMoving[handle] = false;
+  }
+
+  private void removeActive(int index) {
+    int handle = mActive[index];
+    int last = mActive[--mActiveCount];
+    mActive[index] = last;
+    mActiveIndex[last] = index;
+    mActiveIndex[handle] = -1;
+  }
+
+  private void checkHandle(int handle) {
+    if (handle < 0 || handle >= mHandleCount || !mAllocated[handle]) {
+      throw new IllegalArgumentException("handle " + handle +
+          " does not reference a live batch spring");
+    }
+  }
+
+  private void resize(int capacity) {
+    mPosition = Arrays.copyOf(mPosition, capacity);
+    mVelocity = Arrays.copyOf(mVelocity, capacity);
+    mStartValue = Arrays.copyOf(mStartValue, capacity);
+    mEndValue = Arrays.copyOf(mEndValue, capacity);
+    mTension = Arrays.copyOf(mTension, capacity);
+    mFriction = Arrays.copyOf(mFriction, capacity);
+    mSpringConfig = Arrays.copyOf(mSpringConfig, capacity);
+    mActiveIndex = Arrays.copyOf(mActiveIndex, capacity);
+    mMoving = Arrays.copyOf(mMoving, capacity);
+    mAllocated = Arrays.copyOf(mAllocated, capacity);
+    mViews = Arrays.copyOf(mViews, capacity);
+    mActive = Arrays.copyOf(mActive, capacity);
+    mFreeHandles = Arrays.copyOf(mFreeHandles, capacity);
+    mDispatch = Arrays.copyOf(mDispatch, capacity);
+    mDispatchFlags = Arrays.copyOf(mDispatchFlags, capacity);
+  }
+}
@@ -0,0 +1,140 @@
+package com.togglebutton.rebound;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Sequence of frame deltas fed to a {@link BaseSpringSystem}. A trace can be recorded from any
+ * {@link SpringLooper} with {@link SpringLooper#setFrameTimeTrace(FrameTimeTrace)}, saved with
+ * {@link #writeTo(OutputStream)} and replayed off-device by a {@link VirtualClockLooper}.
+ *
+ * Deltas are kept in whole microseconds. On disk each delta is a variable length integer, so a
+ * frame at 60 FPS takes 3 bytes.
+ */
+public class FrameTimeTrace {
+
+  // "RBFT" followed by the format version
+  private static final int MAGIC = 0x52424654;
+  private static final int VERSION = 1;
+  private static final int INITIAL_CAPACITY = 256;
+
+  private int[] mDeltaMicros;
+  private int mSize;
+
+  public FrameTimeTrace() {
+    mDeltaMicros = new int[INITIAL_CAPACITY];
+  }
+
+  private FrameTimeTrace(int[] deltaMicros) {
+    mDeltaMicros = deltaMicros;
+    mSize = deltaMicros.length;
+  }
+
+  /**
+   * append a frame to the trace
+   * @param deltaMillis time elapsed since the previous frame in millis
+   */
+  public void add(double deltaMillis) {
+    if (mSize == mDeltaMicros.length) {
+      mDeltaMicros = Arrays.copyOf(mDeltaMicros, mSize * 2);
+    }
+    mDeltaMicros[mSize++] = (int) Math.max(0, Math.min(Integer.MAX_VALUE, Math.round(deltaMillis * 1000)));
+  }
+
+  /**
+   * get the number of frames in the trace
+   * @return the frame count
+   */
+  public int size() {
+    return mSize;
+  }
+
+  /**
+   * get the delta of a frame
+   * @param index index of the frame
+   * @return time elapsed since the previous frame in millis
+   */
+  public double getDeltaMillis(int index) {
+    if (index < 0 || index >= mSize) {
+      throw new IndexOutOfBoundsException("index " + index + " is out of the trace");
+    }
+    return mDeltaMicros[index] / 1000.0;
+  }
+
+  /**
+   * remove all the frames from the trace
+   */
+  public void clear() {
+    mSize = 0;
+  }
+
+  /**
+   * write the trace to a stream
+   * @param outputStream stream to write to, it is not closed
+   * @throws IOException if the stream fails
+   */
+  public void writeTo(OutputStream outputStream) throws IOException {
+    DataOutputStream out = new DataOutputStream(outputStream);
+    out.writeInt(MAGIC);
+    out.writeByte(VERSION);
+    writeVarInt(out, mSize);
+    for (int i = 0; i < mSize; i++) {
+      writeVarInt(out, mDeltaMicros[i]);
+    }
+    out.flush();
+  }
+
+  /**
+   * read a trace written by {@link #writeTo(OutputStream)}
+   * @param inputStream stream to read from, it is not closed
+   * @return the trace
+   * @throws IOException if the stream fails or does not hold a trace
+   */
+  public static FrameTimeTrace readFrom(InputStream inputStream) throws IOException {
+    DataInputStream in = new DataInputStream(inputStream);
+    if (in.readInt() != MAGIC) {
+      throw new IOException("not a frame time trace");
+    }
+    int version = in.readUnsignedByte();
+    if (version != VERSION) {
+      throw new IOException("unsupported frame time trace version " + version);
+    }
+    int size = readVarInt(in);
+    int[] deltaMicros = new int[size];
+    for (int i = 0; i < size; i++) {
+      deltaMicros[i] = readVarInt(in);
+    }
+    return new FrameTimeTrace(deltaMicros);
+  }
+
+  private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+    while ((value & ~0x7f) != 0) {
+      out.writeByte((value & 0x7f) | 0x80);
+      value >>>= 7;
+    }
+    out.writeByte(value);
+  }
+
+  private static int readVarInt(DataInputStream in) throws IOException {
+    int value = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      int b = in.read();
+      if (b < 0) {
+        throw new EOFException();
+      }
+      value |= (b & 0x7f) << shift;
+      if ((b & 0x80) == 0) {
+        if (value < 0) {
+          throw new IOException("malformed frame time trace");
+        }
+        return value;
+      }
+    }
+    throw new IOException("malformed frame time trace");
+  }
+}
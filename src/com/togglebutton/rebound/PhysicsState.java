@@ -0,0 +1,94 @@
+package com.togglebutton.rebound;
+
+/**
+ * Position and velocity of a spring, along with the fixed step RK4 integration shared by
+ * {@link Spring}, {@link VectorSpring}, {@link BatchSpringSystem} and {@link ThreadedSpringSystem}
+ * so they all follow the same trajectory.
+ */
+final class PhysicsState {
+
+  // fixed timestep to use in the physics solver in seconds
+  static final double SOLVER_TIMESTEP_SEC = 0.001;
+  private static final double HALF_TIMESTEP_SEC = SOLVER_TIMESTEP_SEC * 0.5;
+
+  double position;
+  double velocity;
+
+  /**
+   * Count the whole SOLVER_TIMESTEP_SEC steps in an amount of time. Every integrator counts its
+   * steps with this and subtracts them from its time accumulator at once, so they all land on the
+   * same step boundaries.
+   * @param time time to simulate in seconds
+   * @return the number of steps
+   */
+  static int countSteps(double time) {
+    return (int) Math.floor(time / SOLVER_TIMESTEP_SEC);
+  }
+
+  /**
+   * Advance a state by one SOLVER_TIMESTEP_SEC RK4 step. This samples the derivative at 4 points
+   * of the step, feeding each one into the next, and takes their weighted sum as the final
+   * output.
+   * @param state the state to advance in place
+   * @param endValue the value the spring is pulled to
+   * @param tension the tension of the spring config
+   * @param friction the friction of the spring config
+   */
+  static void step(PhysicsState state, double endValue, double tension, double friction) {
+    final double position = state.position;
+    final double velocity = state.velocity;
+
+    double aAcceleration = tension * (endValue - position) - friction * velocity;
+
+    double bVelocity = velocity + aAcceleration * HALF_TIMESTEP_SEC;
+    double bAcceleration =
+        tension * (endValue - (position + velocity * HALF_TIMESTEP_SEC)) - friction * bVelocity;
+
+    double cVelocity = velocity + bAcceleration * HALF_TIMESTEP_SEC;
+    double cAcceleration =
+        tension * (endValue - (position + bVelocity * HALF_TIMESTEP_SEC)) - friction * cVelocity;
+
+    double dVelocity = velocity + cAcceleration * SOLVER_TIMESTEP_SEC;
+    double dAcceleration =
+        tension * (endValue - (position + cVelocity * SOLVER_TIMESTEP_SEC)) - friction * dVelocity;
+
+    state.position = position +
+        1.0/6.0 * (velocity + 2.0 * (bVelocity + cVelocity) + dVelocity) * SOLVER_TIMESTEP_SEC;
+    state.velocity = velocity +
+        1.0/6.0 * (aAcceleration + 2.0 * (bAcceleration + cAcceleration) + dAcceleration) *
+        SOLVER_TIMESTEP_SEC;
+  }
+
+  /**
+   * Advance a state by a number of RK4 steps, then linearly interpolate it between the states
+   * before and after the last step by the fraction of a step left over in the time accumulator.
+   * Nothing is interpolated when no step was run.
+   * @param state the state to advance in place
+   * @param steps number of SOLVER_TIMESTEP_SEC steps to run
+   * @param alpha remaining fraction of a step, from 0 to 1
+   * @param endValue the value the spring is pulled to
+   * @param tension the tension of the spring config
+   * @param friction the friction of the spring config
+   */
+  static void integrate(
+      PhysicsState state,
+      int steps,
+      double alpha,
+      double endValue,
+      double tension,
+      double friction) {
+    if (steps == 0) {
+      return;
+    }
+    for (int i = 1; i < steps; i++) {
+      step(state, endValue, tension, friction);
+    }
+    double previousPosition = state.position;
+    double previousVelocity = state.velocity;
+    step(state, endValue, tension, friction);
+    if (alpha > 0) {
+      state.position = state.position * alpha + previousPosition * (1 - alpha);
+      state.velocity = state.velocity * alpha + previousVelocity * (1 - alpha);
+    }
+  }
+}
@@ -0,0 +1,69 @@
+package com.togglebutton.rebound;
+
+/**
+ * Process-wide, reference counted {@link SpringSystem}. Views that don't need a private system
+ * attach their springs to this one so that every active spring in the process is driven from a
+ * single frame callback instead of one looper per view.
+ *
+ * Holders call {@link #acquire()} when they become visible (e.g. when attached to a window) and
+ * {@link #release()} when they go away. When the last holder releases and no spring is moving, the
+ * looper is stopped; it is restarted by the next {@link #acquire()} or by any spring activation.
+ * Springs still moving at that point, e.g. the ones of code using {@link #get()} without a
+ * reference, keep running and the looper goes idle on its own once they come to rest.
+ *
+ * The shared system uses the UI thread's frame callbacks, so it must only be used from the UI
+ * thread.
+ */
+public final class SharedSpringSystem {
+
+  private static SpringSystem sInstance;
+  private static int sRefCount;
+
+  private SharedSpringSystem() {
+  }
+
+  /**
+   * get the shared spring system, creating it on first use. This does not take a reference.
+   * @return the shared SpringSystem
+   */
+  public static synchronized SpringSystem get() {
+    if (sInstance == null) {
+      sInstance = SpringSystem.create();
+    }
+    return sInstance;
+  }
+
+  /**
+   * take a reference on the shared spring system, resuming its looper if it was released while
+   * springs were still moving.
+   * @return the shared SpringSystem
+   */
+  public static synchronized SpringSystem acquire() {
+    SpringSystem springSystem = get();
+    if (sRefCount++ == 0) {
+      springSystem.resumeLooper();
+    }
+    return springSystem;
+  }
+
+  /**
+   * drop a reference taken with {@link #acquire()}. The looper is stopped when the last
+   * reference is released, unless springs of the shared system are still moving.
+   */
+  public static synchronized void release() {
+    if (sRefCount == 0) {
+      throw new IllegalStateException("release called without a matching acquire");
+    }
+    if (--sRefCount == 0 && !sInstance.hasActiveSprings()) {
+      sInstance.stopLooper();
+    }
+  }
+
+  /**
+   * get the number of outstanding references
+   * @return the reference count
+   */
+  public static synchronized int getRefCount() {
+    return sRefCount;
+  }
+}
@@ -0,0 +1,19 @@
+package com.togglebutton.rebound;
+
+public class SimpleVectorSpringListener implements VectorSpringListener {
+  @Override
+  public void onSpringUpdate(VectorSpring spring) {
+  }
+
+  @Override
+  public void onSpringAtRest(VectorSpring spring) {
+  }
+
+  @Override
+  public void onSpringActivate(VectorSpring spring) {
+  }
+
+  @Override
+  public void onSpringEndStateChange(VectorSpring spring) {
+  }
+}
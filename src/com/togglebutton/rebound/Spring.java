@@ -11,44 +11,58 @@
 package com.togglebutton.rebound;
 
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Classical spring implementing Hooke's law with configurable friction and tension.
  */
 public class Spring {
 
-  // unique incrementer id for springs
-  private static int ID = 0;
+  // unique incrementer id for springs, shared by all systems
+  private static final AtomicLong sNextId = new AtomicLong();
 
   // maximum amount of time to simulate per physics iteration in seconds (4 frames at 60 FPS)
-  private static final double MAX_DELTA_TIME_SEC = 0.064;
+  static final double MAX_DELTA_TIME_SEC = 0.064;
   // fixed timestep to use in the physics solver in seconds
-  private static final double SOLVER_TIMESTEP_SEC = 0.001;
+  private static final double SOLVER_TIMESTEP_SEC = PhysicsState.SOLVER_TIMESTEP_SEC;
   private SpringConfig mSpringConfig;
   private boolean mOvershootClampingEnabled;
+  private boolean mAnalyticSolverEnabled;
 
-  // storage for the current and prior physics state while integration is occurring
-  private static class PhysicsState {
-    double position;
-    double velocity;
-  }
-
-  // unique id for the spring in the system
-  private final String mId;
+  // unique id for the spring in the process, formatted the first time it is requested
+  private long mIdNumber;
+  private String mId;
   // all physics simulation objects are final and reused in each processing pass
   private final PhysicsState mCurrentState = new PhysicsState();
   private final PhysicsState mPreviousState = new PhysicsState();
-  private final PhysicsState mTempState = new PhysicsState();
   private double mStartValue;
   private double mEndValue;
   private boolean mWasAtRest = true;
   // thresholds for determining when the spring is at rest
-  private double mRestSpeedThreshold = 0.005;
-  private double mDisplacementFromRestThreshold = 0.005;
+  private static final double DEFAULT_REST_THRESHOLD = 0.005;
+  private double mRestSpeedThreshold = DEFAULT_REST_THRESHOLD;
+  private double mDisplacementFromRestThreshold = DEFAULT_REST_THRESHOLD;
+  // remaining motion below which the spring snaps to rest early, 0 to disable
+  private double mVisualRestThreshold;
   private CopyOnWriteArraySet<SpringListener> mListeners = new CopyOnWriteArraySet<SpringListener>();
   private double mTimeAccumulator = 0;
+  private final AnalyticSpringSolver mAnalyticSolver = new AnalyticSpringSolver();
 
   private final BaseSpringSystem mSpringSystem;
+  // handle of this spring in the registry of its system, see BaseSpringSystem#getSpringByHandle
+  private int mHandle = BaseSpringSystem.NO_HANDLE;
+  // slot of this spring in the active list of its system, -1 when it is not active
+  int mActiveIndex = -1;
+  // graph advancing this spring instead of the system, and the spring whose position its end
+  // value follows, see SpringGraph
+  SpringGraph mGraph;
+  Spring mLeader;
+  double mLeaderOffset;
+  // position of this spring in the topological order of its graph
+  int mGraphOrder = -1;
+  // last loop in which the spring was recorded as updated, see UpdatedSprings
+  UpdatedSprings mUpdatedSprings;
+  int mUpdatedFrame;
 
   /**
    * create a new spring
@@ -58,7 +72,7 @@ public class Spring {
       throw new IllegalArgumentException("Spring cannot be created outside of a BaseSpringSystem");
     }
     mSpringSystem = springSystem;
-    mId = "spring:" + ID++;
+    mIdNumber = sNextId.getAndIncrement();
     setSpringConfig(SpringConfig.defaultConfig);
   }
 
@@ -73,13 +87,58 @@ public class Spring {
   }
 
   /**
-   * get the unique id for this spring
+   * Bring a released spring back to the state of a newly created one so it can be pooled. The
+   * listener set is cleared in place and the physics state objects are kept.
+   */
+  void reset() {
+    // a pooled spring is a new spring to whoever acquires it
+    mIdNumber = sNextId.getAndIncrement();
+    mId = null;
+    mListeners.clear();
+    mSpringConfig = SpringConfig.defaultConfig;
+    mOvershootClampingEnabled = false;
+    mAnalyticSolverEnabled = false;
+    mCurrentState.position = 0;
+    mCurrentState.velocity = 0;
+    mPreviousState.position = 0;
+    mPreviousState.velocity = 0;
+    mStartValue = 0;
+    mEndValue = 0;
+    mWasAtRest = true;
+    mRestSpeedThreshold = DEFAULT_REST_THRESHOLD;
+    mDisplacementFromRestThreshold = DEFAULT_REST_THRESHOLD;
+    mVisualRestThreshold = 0;
+    mTimeAccumulator = 0;
+  }
+
+  /**
+   * get the id of this spring, unique across all the systems of the process
    * @return the unique id
    */
   public String getId() {
+    if (mId == null) {
+      mId = "spring:" + mIdNumber;
+    }
     return mId;
   }
 
+  /**
+   * get the handle of this spring in its system. Handles are cheaper to keep and look up than ids
+   * and stop resolving once the spring is destroyed.
+   * @return the handle of the spring
+   */
+  public int getHandle() {
+    return mHandle;
+  }
+
+  /**
+   * bind the spring to a new handle, called by the system when it registers the spring
+   * @param handle the handle assigned to the spring
+   */
+  void setHandle(int handle) {
+    mHandle = handle;
+  }
+
   /**
    * set the config class
    * @param springConfig config class for the spring
@@ -111,10 +170,8 @@ public class Spring {
   public Spring setCurrentValue(double currentValue) {
     mStartValue = currentValue;
     mCurrentState.position = currentValue;
-    mSpringSystem.activateSpring(this.getId());
-    for (SpringListener listener : mListeners) {
-      listener.onSpringUpdate(this);
-    }
+    mSpringSystem.activateSpring(this);
+    notifyUpdate();
     return this;
   }
 
@@ -162,13 +219,25 @@ public class Spring {
     }
     mStartValue = getCurrentValue();
     mEndValue = endValue;
-    mSpringSystem.activateSpring(this.getId());
-    for (SpringListener listener : mListeners) {
-      listener.onSpringEndStateChange(this);
-    }
+    mSpringSystem.activateSpring(this);
+    notifyEndStateChange();
     return this;
   }
 
+  /**
+   * move the end value to the position of the leader in the spring graph, without notifying the
+   * listeners of an end state change
+   * @param endValue the new end value
+   */
+  void followLeader(double endValue) {
+    if (mEndValue == endValue) {
+      return;
+    }
+    mStartValue = getCurrentValue();
+    mEndValue = endValue;
+    mSpringSystem.activateSpring(this);
+  }
+
   /**
    * get the rest value used for determining the displacement of the spring
    * @return the rest value for the spring
@@ -183,7 +252,7 @@ public class Spring {
    */
   public Spring setVelocity(double velocity) {
     mCurrentState.velocity = velocity;
-    mSpringSystem.activateSpring(this.getId());
+    mSpringSystem.activateSpring(this);
     return this;
   }
 
@@ -249,6 +318,127 @@ public class Spring {
     return mOvershootClampingEnabled;
   }
 
+  /**
+   * Use the closed form solution of the spring instead of the fixed step RK4 integrator. Each
+   * advance then costs the same no matter how large the frame delta is. Trajectories match the
+   * integrator within the rest thresholds.
+   * @param analyticSolverEnabled whether or not to use the analytic solver
+   * @return the spring for chaining
+   */
+  public Spring setAnalyticSolverEnabled(boolean analyticSolverEnabled) {
+    mAnalyticSolverEnabled = analyticSolverEnabled;
+    return this;
+  }
+
+  /**
+   * Check if the analytic solver is enabled.
+   * @return is the analytic solver enabled
+   */
+  public boolean isAnalyticSolverEnabled() {
+    return mAnalyticSolverEnabled;
+  }
+
+  /**
+   * Let the spring snap to rest as soon as its remaining motion, see
+   * {@link #getRemainingMotion()}, is below the given threshold. Set it to a fraction of a pixel
+   * in spring units to stop springs that only creep by invisible amounts. 0 disables it.
+   * @param visualRestThreshold remaining motion to snap below
+   * @return the spring for chaining
+   */
+  public Spring setVisualRestThreshold(double visualRestThreshold) {
+    mVisualRestThreshold = visualRestThreshold;
+    return this;
+  }
+
+  /**
+   * get the remaining motion below which the spring snaps to rest early
+   * @return the visual rest threshold, 0 if disabled
+   */
+  public double getVisualRestThreshold() {
+    return mVisualRestThreshold;
+  }
+
+  /**
+   * Get a bound on how far the spring can still get from its end value. With a unit mass the
+   * energy of the spring is (tension * x^2 + v^2) / 2 and friction only removes energy, so the
+   * displacement can never again exceed sqrt(x^2 + v^2 / tension).
+   * @return the largest displacement the spring can still reach
+   */
+  public double getRemainingMotion() {
+    return getRemainingMotion(mSpringConfig, mEndValue - mCurrentState.position,
+        mCurrentState.velocity);
+  }
+
+  /**
+   * {@link #getRemainingMotion()} of a spring in the given state
+   */
+  static double getRemainingMotion(SpringConfig springConfig, double displacement,
+      double velocity) {
+    double tension = springConfig.tension;
+    if (tension > 0) {
+      return Math.sqrt(displacement * displacement + velocity * velocity / tension);
+    }
+    // without tension the spring only coasts to a stop
+    double friction = springConfig.friction;
+    if (friction > 0) {
+      return Math.abs(displacement) + Math.abs(velocity) / friction;
+    }
+    return velocity == 0 ? Math.abs(displacement) : Double.POSITIVE_INFINITY;
+  }
+
+  /**
+   * Estimate the time the spring takes from its current state to come to rest. The energy bound
+   * of {@link #getRemainingMotion()} decays at the rate of the slowest mode of the spring, half the
+   * friction when it oscillates, and the estimate is the time that bound takes to fall within the
+   * rest thresholds, or below the visual rest threshold if that comes first.
+   * @return the estimated time to rest in seconds, infinite if the spring never settles
+   */
+  public double getEstimatedTimeToRest() {
+    return getEstimatedTimeToRest(mSpringConfig, mEndValue - mCurrentState.position,
+        mCurrentState.velocity, mRestSpeedThreshold, mDisplacementFromRestThreshold,
+        mVisualRestThreshold);
+  }
+
+  /**
+   * {@link #getEstimatedTimeToRest()} of a spring in the given state with the given thresholds
+   */
+  static double getEstimatedTimeToRest(SpringConfig springConfig, double displacement,
+      double velocity, double restSpeedThreshold, double displacementFromRestThreshold,
+      double visualRestThreshold) {
+    double tension = springConfig.tension;
+    double friction = springConfig.friction;
+    if (tension <= 0) {
+      // without tension only the velocity decays, at the rate of the friction
+      if (Math.abs(velocity) <= restSpeedThreshold) {
+        return 0;
+      }
+      return friction > 0 ?
+          Math.log(Math.abs(velocity) / restSpeedThreshold) / friction :
+          Double.POSITIVE_INFINITY;
+    }
+
+    double naturalFrequency = springConfig.naturalFrequency;
+    double amplitude = getRemainingMotion(springConfig, displacement, velocity);
+    if (amplitude <= visualRestThreshold ||
+        (amplitude <= displacementFromRestThreshold &&
+            amplitude * naturalFrequency <= restSpeedThreshold)) {
+      return 0;
+    }
+    double rate = springConfig.regime == SpringConfig.OVERDAMPED ?
+        springConfig.decay - springConfig.frequency :
+        springConfig.decay;
+    if (rate <= 0) {
+      return Double.POSITIVE_INFINITY;
+    }
+    double displacementTime = Math.log(amplitude / displacementFromRestThreshold) / rate;
+    double speedTime = Math.log(amplitude * naturalFrequency / restSpeedThreshold) / rate;
+    double restTime = Math.max(displacementTime, speedTime);
+    if (visualRestThreshold > 0) {
+      restTime = Math.min(restTime, Math.log(amplitude / visualRestThreshold) / rate);
+    }
+    return Math.max(0, restTime);
+  }
+
   /**
    * Check if the spring is overshooting beyond its target.
    * @return true if the spring is overshooting its target
@@ -259,10 +449,8 @@ public class Spring {
   }
 
   /**
-   * advance the physics simulation in SOLVER_TIMESTEP_SEC sized chunks to fulfill the required
-   * realTimeDelta.
-   * The math is inlined inside the loop since it made a huge performance impact when there are
-   * several springs being advanced.
+   * advance the physics simulation to fulfill the required realTimeDelta, either in
+   * SOLVER_TIMESTEP_SEC sized RK4 chunks or in one step with the analytic solver.
    * @param time clock time
    * @param realDeltaTime clock drift
    */
@@ -284,92 +472,19 @@ public class Spring {
       adjustedDeltaTime = MAX_DELTA_TIME_SEC;
     }
 
-    /* begin debug
-    long startTime = System.currentTimeMillis();
-    int iterations = 0;
-    end debug */
-
-    mTimeAccumulator += adjustedDeltaTime;
-
-    double tension = mSpringConfig.tension;
-    double friction = mSpringConfig.friction;
-
-    double position = mCurrentState.position;
-    double velocity = mCurrentState.velocity;
-    double tempPosition = mTempState.position;
-    double tempVelocity = mTempState.velocity;
-
-    double aVelocity, aAcceleration;
-    double bVelocity, bAcceleration;
-    double cVelocity, cAcceleration;
-    double dVelocity, dAcceleration;
-
-    double dxdt, dvdt;
-
-    // iterate over the true time
-    while (mTimeAccumulator >= SOLVER_TIMESTEP_SEC) {
-      /* begin debug
-      iterations++;
-      end debug */
-      mTimeAccumulator -= SOLVER_TIMESTEP_SEC;
-
-      if (mTimeAccumulator < SOLVER_TIMESTEP_SEC) {
-        // This will be the last iteration. Remember the previous state in case we need to
-        // interpolate
-        mPreviousState.position = position;
-        mPreviousState.velocity = velocity;
-      }
-
-      // Perform an RK4 integration to provide better detection of the acceleration curve via
-      // sampling of Euler integrations at 4 intervals feeding each derivative into the calculation
-      // of the next and taking a weighted sum of the 4 derivatives as the final output.
-
-      // This math was inlined since it made for big performance improvements when advancing several
-      // springs in one pass of the BaseSpringSystem.
-
-      // The initial derivative is based on the current velocity and the calculated acceleration
-      aVelocity = velocity;
-      aAcceleration = (tension * (mEndValue - tempPosition)) - friction * velocity;
-
-      // Calculate the next derivatives starting with the last derivative and integrating over the
-      // timestep
-      tempPosition = position + aVelocity * SOLVER_TIMESTEP_SEC * 0.5;
-      tempVelocity = velocity + aAcceleration * SOLVER_TIMESTEP_SEC * 0.5;
-      bVelocity = tempVelocity;
-      bAcceleration = (tension * (mEndValue - tempPosition)) - friction * tempVelocity;
-
-      tempPosition = position + bVelocity * SOLVER_TIMESTEP_SEC * 0.5;
-      tempVelocity = velocity + bAcceleration * SOLVER_TIMESTEP_SEC * 0.5;
-      cVelocity = tempVelocity;
-      cAcceleration = (tension * (mEndValue - tempPosition)) - friction * tempVelocity;
-
-      tempPosition = position + cVelocity * SOLVER_TIMESTEP_SEC;
-      tempVelocity = velocity + cAcceleration * SOLVER_TIMESTEP_SEC;
-      dVelocity = tempVelocity;
-      dAcceleration = (tension * (mEndValue - tempPosition)) - friction * tempVelocity;
-
-      // Take the weighted sum of the 4 derivatives as the final output.
-      dxdt = 1.0/6.0 * (aVelocity + 2.0 * (bVelocity + cVelocity) + dVelocity);
-      dvdt = 1.0/6.0 * (aAcceleration + 2.0 * (bAcceleration + cAcceleration) + dAcceleration);
-
-      position += dxdt * SOLVER_TIMESTEP_SEC;
-      velocity += dvdt * SOLVER_TIMESTEP_SEC;
-    }
-
-    mTempState.position = tempPosition;
-    mTempState.velocity = tempVelocity;
-
-    mCurrentState.position = position;
-    mCurrentState.velocity = velocity;
-
-    if (mTimeAccumulator > 0) {
-      interpolate(mTimeAccumulator / SOLVER_TIMESTEP_SEC);
+    int iterations;
+    if (mAnalyticSolverEnabled) {
+      iterations = solveAnalytic(adjustedDeltaTime);
+    } else {
+      iterations = integrate(adjustedDeltaTime);
     }
 
     // End the spring immediately if it is overshooting and overshoot clamping is enabled.
     // Also make sure that if the spring was considered within a resting threshold that it's now
     // snapped to its end value.
-    if (isAtRest() || (mOvershootClampingEnabled && isOvershooting())) {
+    if (isAtRest() ||
+        (mOvershootClampingEnabled && isOvershooting()) ||
+        (mVisualRestThreshold > 0 && getRemainingMotion() <= mVisualRestThreshold)) {
       // Don't call setCurrentValue because that forces a call to onSpringUpdate
       mStartValue = mEndValue;
       mCurrentState.position = mEndValue;
@@ -377,20 +492,6 @@ public class Spring {
       isAtRest = true;
     }
 
-    /* begin debug
-    long endTime = System.currentTimeMillis();
-    long elapsedMillis = endTime - startTime;
-    Log.d(TAG,
-        "iterations:" + iterations +
-            " iterationTime:" + elapsedMillis +
-            " position:" + mCurrentState.position +
-            " velocity:" + mCurrentState.velocity +
-            " realDeltaTime:" + realDeltaTime +
-            " adjustedDeltaTime:" + adjustedDeltaTime +
-            " isAtRest:" + isAtRest +
-            " wasAtRest:" + mWasAtRest);
-    end debug */
-
     // NB: do these checks outside the loop so all listeners are properly notified of the state
     //     transition
     boolean notifyActivate = false;
@@ -403,6 +504,28 @@ public class Spring {
       mWasAtRest = true;
       notifyAtRest = true;
     }
+
+    mSpringSystem.recordUpdatedSpring(this);
+    SpringSystemMetrics metrics = mSpringSystem.getRecordingMetrics();
+    if (metrics == null) {
+      notifyAdvance(notifyActivate, notifyAtRest);
+    } else {
+      metrics.addIterations(iterations);
+      if (realDeltaTime > MAX_DELTA_TIME_SEC) {
+        metrics.addClampedSprings(1);
+      }
+      long dispatchStart = System.nanoTime();
+      notifyAdvance(notifyActivate, notifyAtRest);
+      metrics.addListenerNanos(System.nanoTime() - dispatchStart);
+    }
+  }
+
+  /**
+   * notify the listeners of an advance of the simulation
+   * @param notifyActivate whether the spring just left its resting state
+   * @param notifyAtRest whether the spring just came to rest
+   */
+  void notifyAdvance(boolean notifyActivate, boolean notifyAtRest) {
     for (SpringListener listener : mListeners) {
       // starting to move
       if (notifyActivate) {
@@ -419,6 +542,63 @@ public class Spring {
     }
   }
 
+  /**
+   * advance the physics simulation in SOLVER_TIMESTEP_SEC sized RK4 steps, carrying any remainder
+   * over to the next call and interpolating the current state for it, see
+   * {@link PhysicsState#integrate(PhysicsState, int, double, double, double, double)}.
+   * @param deltaTime time to simulate in seconds
+   * @return the number of steps run
+   */
+  private int integrate(double deltaTime) {
+    mTimeAccumulator += deltaTime;
+    int steps = PhysicsState.countSteps(mTimeAccumulator);
+    mTimeAccumulator -= steps * SOLVER_TIMESTEP_SEC;
+    PhysicsState.integrate(
+        mCurrentState,
+        steps,
+        mTimeAccumulator / SOLVER_TIMESTEP_SEC,
+        mEndValue,
+        mSpringConfig.tension,
+        mSpringConfig.friction);
+    return steps;
+  }
+
+  /**
+   * advance the physics simulation by evaluating the closed form solution of the spring. This
+   * follows the same SOLVER_TIMESTEP_SEC schedule as {@link #integrate(double)}, including the
+   * interpolation of the remaining time, so both solvers report the same trajectory; it just
+   * jumps straight to the last two steps instead of iterating over all of them.
+   * @param deltaTime time to simulate in seconds
+   * @return the number of steps covered
+   */
+  private int solveAnalytic(double deltaTime) {
+    mTimeAccumulator += deltaTime;
+    // count the steps like the integrator does so both land on the same step boundaries
+    int steps = PhysicsState.countSteps(mTimeAccumulator);
+    mTimeAccumulator -= steps * SOLVER_TIMESTEP_SEC;
+    if (steps == 0) {
+      return 0;
+    }
+
+    SpringConfig springConfig = mSpringConfig;
+    double displacement = mCurrentState.position - mEndValue;
+    double velocity = mCurrentState.velocity;
+
+    mAnalyticSolver.solve(
+        springConfig, displacement, velocity, (steps - 1) * SOLVER_TIMESTEP_SEC);
+    mPreviousState.position = mEndValue + mAnalyticSolver.displacement;
+    mPreviousState.velocity = mAnalyticSolver.velocity;
+
+    mAnalyticSolver.solve(springConfig, displacement, velocity, steps * SOLVER_TIMESTEP_SEC);
+    mCurrentState.position = mEndValue + mAnalyticSolver.displacement;
+    mCurrentState.velocity = mAnalyticSolver.velocity;
+
+    if (mTimeAccumulator > 0) {
+      interpolate(mTimeAccumulator / SOLVER_TIMESTEP_SEC);
+    }
+    return steps;
+  }
+
   /**
    * Check if this spring should be advanced by the system.  * The rule is if the spring is
    * currently at rest and it was at rest in the previous advance, the system can skip this spring
@@ -452,7 +632,6 @@ public class Spring {
    */
   public Spring setAtRest() {
     mEndValue = mCurrentState.position;
-    mTempState.position = mCurrentState.position;
     mCurrentState.velocity = 0;
     return this;
   }
@@ -469,6 +648,24 @@ public class Spring {
 
   /** listeners **/
 
+  /**
+   * notify the listeners that the current value was set
+   */
+  void notifyUpdate() {
+    for (SpringListener listener : mListeners) {
+      listener.onSpringUpdate(this);
+    }
+  }
+
+  /**
+   * notify the listeners that the end value was set
+   */
+  void notifyEndStateChange() {
+    for (SpringListener listener : mListeners) {
+      listener.onSpringEndStateChange(this);
+    }
+  }
+
   /**
    * add a listener
    * @param newListener to add
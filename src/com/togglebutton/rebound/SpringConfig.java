@@ -10,35 +10,148 @@
 
 package com.togglebutton.rebound;
 
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
- * Data structure for storing spring configuration.
+ * Immutable spring configuration. Besides tension and friction it holds the coefficients the
+ * solvers derive from them, computed once when the config is created. Configs built with
+ * {@link #of(double, double)} or {@link #fromOrigamiTensionAndFriction(double, double)} are
+ * interned, so every spring using the same values shares a single instance. The intern table only
+ * holds configs weakly: a config stays shared for as long as a spring, a registry or the app
+ * references it, and configs computed on the fly for a single animation do not pile up.
  */
 public class SpringConfig {
-  public double friction;
-  public double tension;
 
-  public static SpringConfig defaultConfig = SpringConfig.fromOrigamiTensionAndFriction(40, 7);
+  // relative tolerance for treating a config as critically damped
+  private static final double CRITICAL_DAMPING_EPSILON = 1e-9;
+
+  static final int CRITICALLY_DAMPED = 0;
+  static final int UNDERDAMPED = 1;
+  static final int OVERDAMPED = 2;
+
+  private static final ConcurrentHashMap<Key, InternedRef> sInterned =
+      new ConcurrentHashMap<Key, InternedRef>();
+  // references cleared by the collector, whose entries are purged on the next of()
+  private static final ReferenceQueue<SpringConfig> sCleared = new ReferenceQueue<SpringConfig>();
+
+  public final double friction;
+  public final double tension;
+  // natural frequency of the undamped spring, sqrt(tension) for a unit mass
+  public final double naturalFrequency;
+  // friction relative to critical damping: below 1 the spring oscillates, above 1 it creeps
+  public final double dampingRatio;
+  // decay rate of the envelope, half the friction for a unit mass
+  final double decay;
+  // damped frequency when underdamped, sqrt(decay^2 - tension) when overdamped
+  final double frequency;
+  final int regime;
+
+  public static final SpringConfig defaultConfig = SpringConfig.fromOrigamiTensionAndFriction(40, 7);
 
   /**
-   * constructor for the SpringConfig
+   * constructor for the SpringConfig. Prefer {@link #of(double, double)}, which shares instances.
    * @param tension tension value for the SpringConfig
    * @param friction friction value for the SpringConfig
    */
   public SpringConfig(double tension, double friction) {
     this.tension = tension;
     this.friction = friction;
+    naturalFrequency = Math.sqrt(Math.max(0, tension));
+    dampingRatio = naturalFrequency > 0 ? friction / (2 * naturalFrequency) : Double.POSITIVE_INFINITY;
+    decay = friction * 0.5;
+    double discriminant = decay * decay - tension;
+    if (Math.abs(discriminant) <= CRITICAL_DAMPING_EPSILON * Math.max(1, tension)) {
+      regime = CRITICALLY_DAMPED;
+      frequency = 0;
+    } else if (discriminant < 0) {
+      regime = UNDERDAMPED;
+      frequency = Math.sqrt(-discriminant);
+    } else {
+      regime = OVERDAMPED;
+      frequency = Math.sqrt(discriminant);
+    }
+  }
+
+  /**
+   * get the shared SpringConfig for a tension and friction
+   * @param tension tension value for the SpringConfig
+   * @param friction friction value for the SpringConfig
+   * @return the interned SpringConfig
+   */
+  public static SpringConfig of(double tension, double friction) {
+    purgeCleared();
+    Key key = new Key(tension, friction);
+    while (true) {
+      InternedRef ref = sInterned.get(key);
+      SpringConfig springConfig = ref != null ? ref.get() : null;
+      if (springConfig != null) {
+        return springConfig;
+      }
+      springConfig = new SpringConfig(tension, friction);
+      InternedRef newRef = new InternedRef(key, springConfig);
+      // replace a cleared entry, or add one; retry if another thread got there first
+      if (ref == null ? sInterned.putIfAbsent(key, newRef) == null :
+          sInterned.replace(key, ref, newRef)) {
+        return springConfig;
+      }
+    }
+  }
+
+  private static void purgeCleared() {
+    InternedRef ref;
+    while ((ref = (InternedRef) sCleared.poll()) != null) {
+      // a newer config may already have taken the entry over
+      sInterned.remove(ref.mKey, ref);
+    }
   }
 
   /**
    * A helper to make creating a SpringConfig easier with values mapping to the Origami values.
    * @param qcTension tension as defined in the Quartz Composition
    * @param qcFriction friction as defined in the Quartz Composition
-   * @return a SpringConfig that maps to these values
+   * @return the interned SpringConfig that maps to these values
    */
   public static SpringConfig fromOrigamiTensionAndFriction(double qcTension, double qcFriction) {
-    return new SpringConfig(
+    return of(
         OrigamiValueConverter.tensionFromOrigamiValue(qcTension),
         OrigamiValueConverter.frictionFromOrigamiValue(qcFriction)
     );
   }
+
+  private static final class InternedRef extends WeakReference<SpringConfig> {
+    private final Key mKey;
+
+    InternedRef(Key key, SpringConfig springConfig) {
+      super(springConfig, sCleared);
+      mKey = key;
+    }
+  }
+
+  private static final class Key {
+    private final double mTension;
+    private final double mFriction;
+
+    Key(double tension, double friction) {
+      mTension = tension;
+      mFriction = friction;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return Double.compare(mTension, other.mTension) == 0 &&
+          Double.compare(mFriction, other.mFriction) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+      long bits = Double.doubleToLongBits(mTension) * 31 + Double.doubleToLongBits(mFriction);
+      return (int) (bits ^ (bits >>> 32));
+    }
+  }
 }
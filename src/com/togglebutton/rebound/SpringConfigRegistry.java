@@ -11,11 +11,11 @@
 package com.togglebutton.rebound;
 
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * class for maintaining a registry of all spring configs
+ * class for maintaining a registry of all spring configs. The registry can be used from any thread.
  */
 public class SpringConfigRegistry {
 
@@ -25,13 +25,13 @@ public class SpringConfigRegistry {
     return INSTANCE;
   }
 
-  private final Map<SpringConfig, String> mSpringConfigMap;
+  private final ConcurrentHashMap<SpringConfig, String> mSpringConfigMap;
 
   /**
    * constructor for the SpringConfigRegistry
    */
   SpringConfigRegistry(boolean includeDefaultEntry) {
-    mSpringConfigMap = new HashMap<SpringConfig, String>();
+    mSpringConfigMap = new ConcurrentHashMap<SpringConfig, String>();
     if (includeDefaultEntry) {
       addSpringConfig(SpringConfig.defaultConfig, "default config");
     }
@@ -42,8 +42,7 @@ public class SpringConfigRegistry {
    *
    * @param springConfig SpringConfig to add to the registry
    * @param configName name to give the SpringConfig in the registry
-   * @return true if the SpringConfig was added, false if a config with that name is already
-   *    present.
+   * @return true if the SpringConfig was added, false if it is already present.
    */
   public boolean addSpringConfig(SpringConfig springConfig, String configName) {
     if (springConfig == null) {
@@ -52,11 +51,7 @@ public class SpringConfigRegistry {
     if (configName == null) {
       throw new IllegalArgumentException("configName is required");
     }
-    if (mSpringConfigMap.containsKey(springConfig)) {
-      return false;
-    }
-    mSpringConfigMap.put(springConfig, configName);
-    return true;
+    return mSpringConfigMap.putIfAbsent(springConfig, configName) == null;
   }
 
   /**
@@ -71,6 +66,27 @@ public class SpringConfigRegistry {
     return mSpringConfigMap.remove(springConfig) != null;
   }
 
+  /**
+   * swap a registered SpringConfig for another one under the same name, e.g. after tuning it
+   * @param oldConfig the registered SpringConfig
+   * @param newConfig the SpringConfig to register in its place
+   * @return true if the SpringConfig was replaced, false if oldConfig was not present.
+   */
+  public boolean replaceSpringConfig(SpringConfig oldConfig, SpringConfig newConfig) {
+    if (oldConfig == null) {
+      throw new IllegalArgumentException("oldConfig is required");
+    }
+    if (newConfig == null) {
+      throw new IllegalArgumentException("newConfig is required");
+    }
+    String configName = mSpringConfigMap.remove(oldConfig);
+    if (configName == null) {
+      return false;
+    }
+    mSpringConfigMap.put(newConfig, configName);
+    return true;
+  }
+
   /**
    * retrieve all SpringConfig in the registry
    * @return a list of all SpringConfig
@@ -0,0 +1,279 @@
+package com.togglebutton.rebound;
+
+import java.util.Arrays;
+
+/**
+ * Graph of springs whose end values follow the positions of other springs, for chains like chat
+ * heads or staggered list items. A follower's end value is bound to the current value of its
+ * leader plus an offset. The system advances the whole graph in topological order within one
+ * loop, so every follower sees the position its leader reached in the same frame instead of
+ * lagging a frame per link.
+ *
+ * Bound end values are updated without calling
+ * {@link SpringListener#onSpringEndStateChange(Spring)}; the other callbacks fire as usual. Each
+ * spring can follow a single leader, and a leader can have any number of followers.
+ */
+public class SpringGraph {
+
+  private static final int INITIAL_CAPACITY = 8;
+
+  private final BaseSpringSystem mSpringSystem;
+  private Spring[] mNodes = new Spring[INITIAL_CAPACITY];
+  private int mNodeCount;
+  // nodes sorted so that each leader comes before its followers, rebuilt when the edges change
+  private Spring[] mOrder = new Spring[INITIAL_CAPACITY];
+  private int mOrderCount;
+  private boolean mOrderDirty;
+  private boolean mDestroyed;
+
+  /**
+   * create a new graph, see {@link BaseSpringSystem#createSpringGraph()}
+   */
+  SpringGraph(BaseSpringSystem springSystem) {
+    if (springSystem == null) {
+      throw new IllegalArgumentException("SpringGraph cannot be created outside of a BaseSpringSystem");
+    }
+    mSpringSystem = springSystem;
+  }
+
+  /**
+   * add a spring to the graph without binding it. A spring can only be part of one graph.
+   * @param spring a spring of the system of this graph
+   * @return the graph for chaining
+   */
+  public SpringGraph addSpring(Spring spring) {
+    checkAlive();
+    if (spring == null) {
+      throw new IllegalArgumentException("spring is required");
+    }
+    if (spring.mGraph == this) {
+      return this;
+    }
+    if (spring.mGraph != null) {
+      throw new IllegalArgumentException("spring " + spring.getId() + " is already in a graph");
+    }
+    if (mSpringSystem.getSpringByHandle(spring.getHandle()) != spring) {
+      throw new IllegalArgumentException("spring " + spring.getId() + " is not a spring of this system");
+    }
+    if (mNodeCount == mNodes.length) {
+      mNodes = Arrays.copyOf(mNodes, mNodeCount * 2);
+    }
+    mNodes[mNodeCount++] = spring;
+    spring.mGraph = this;
+    spring.mLeader = null;
+    spring.mLeaderOffset = 0;
+    mOrderDirty = true;
+    return this;
+  }
+
+  /**
+   * remove a spring from the graph, its followers become unbound. Destroyed or released springs
+   * are removed from their graph automatically.
+   * @param spring the spring to remove
+   * @return the graph for chaining
+   */
+  public SpringGraph removeSpring(Spring spring) {
+    if (spring == null) {
+      throw new IllegalArgumentException("spring is required");
+    }
+    if (spring.mGraph != this) {
+      return this;
+    }
+    for (int i = 0; i < mNodeCount; i++) {
+      Spring node = mNodes[i];
+      if (node.mLeader == spring) {
+        node.mLeader = null;
+      }
+    }
+    for (int i = 0; i < mNodeCount; i++) {
+      if (mNodes[i] == spring) {
+        mNodes[i] = mNodes[--mNodeCount];
+        mNodes[mNodeCount] = null;
+        break;
+      }
+    }
+    spring.mGraph = null;
+    spring.mLeader = null;
+    spring.mLeaderOffset = 0;
+    mOrderDirty = true;
+    return this;
+  }
+
+  /**
+   * bind the end value of a spring to the current value of another one
+   * @param follower the spring to bind
+   * @param leader the spring to follow
+   * @return the graph for chaining
+   */
+  public SpringGraph attach(Spring follower, Spring leader) {
+    return attach(follower, leader, 0);
+  }
+
+  /**
+   * bind the end value of a spring to the current value of another one plus an offset, replacing
+   * any previous binding of the follower. Both springs are added to the graph if needed.
+   * @param follower the spring to bind
+   * @param leader the spring to follow
+   * @param offset distance from the leader at which the follower comes to rest
+   * @return the graph for chaining
+   */
+  public SpringGraph attach(Spring follower, Spring leader, double offset) {
+    if (follower == null) {
+      throw new IllegalArgumentException("follower is required");
+    }
+    if (leader == null) {
+      throw new IllegalArgumentException("leader is required");
+    }
+    for (Spring node = leader; node != null; node = node.mLeader) {
+      if (node == follower) {
+        throw new IllegalArgumentException("attaching " + follower.getId() + " to " +
+            leader.getId() + " would create a cycle");
+      }
+    }
+    addSpring(follower);
+    addSpring(leader);
+    follower.mLeader = leader;
+    follower.mLeaderOffset = offset;
+    mOrderDirty = true;
+    follower.followLeader(leader.getCurrentValue() + offset);
+    return this;
+  }
+
+  /**
+   * bind each spring to the previous one, the first one leading the chain
+   * @param springs the springs of the chain in order
+   * @return the graph for chaining
+   */
+  public SpringGraph chain(Spring... springs) {
+    if (springs == null) {
+      throw new IllegalArgumentException("springs are required");
+    }
+    for (int i = 1; i < springs.length; i++) {
+      attach(springs[i], springs[i - 1]);
+    }
+    return this;
+  }
+
+  /**
+   * unbind a spring from its leader, leaving it in the graph with its current end value
+   * @param follower the spring to unbind
+   * @return the graph for chaining
+   */
+  public SpringGraph detach(Spring follower) {
+    if (follower == null) {
+      throw new IllegalArgumentException("follower is required");
+    }
+    if (follower.mGraph == this && follower.mLeader != null) {
+      follower.mLeader = null;
+      follower.mLeaderOffset = 0;
+      mOrderDirty = true;
+    }
+    return this;
+  }
+
+  /**
+   * get the spring a spring of the graph follows
+   * @param follower a spring of the graph
+   * @return the leader or null if the spring is not bound
+   */
+  public Spring getLeader(Spring follower) {
+    if (follower == null) {
+      throw new IllegalArgumentException("follower is required");
+    }
+    return follower.mGraph == this ? follower.mLeader : null;
+  }
+
+  /**
+   * get the number of springs in the graph
+   * @return the spring count
+   */
+  public int getSpringCount() {
+    return mNodeCount;
+  }
+
+  /**
+   * Remove all the springs from the graph and from its system. The springs themselves are kept
+   * and go back to being advanced on their own. Do not use the graph after calling this.
+   */
+  public void destroy() {
+    while (mNodeCount > 0) {
+      removeSpring(mNodes[mNodeCount - 1]);
+    }
+    mDestroyed = true;
+    mSpringSystem.removeSpringGraph(this);
+  }
+
+  /**
+   * advance the springs of the graph, leaders before followers
+   * @param realDeltaTime time to simulate in seconds
+   */
+  void advance(double realDeltaTime) {
+    if (mOrderDirty) {
+      sort();
+    }
+    int orderCount = mOrderCount;
+    for (int i = 0; i < orderCount; i++) {
+      Spring node = mOrder[i];
+      // removed by a listener earlier in this pass
+      if (node.mGraph != this) {
+        continue;
+      }
+      Spring leader = node.mLeader;
+      if (leader != null) {
+        node.followLeader(leader.getCurrentValue() + node.mLeaderOffset);
+      }
+      if (node.mActiveIndex < 0) {
+        continue;
+      }
+      if (node.systemShouldAdvance()) {
+        node.advance(realDeltaTime);
+      } else {
+        mSpringSystem.deactivateSpring(node);
+      }
+    }
+  }
+
+  /**
+   * rebuild the topological order. Each node has at most one leader so the graph is a forest:
+   * every node is placed after walking up to the first ancestor already placed.
+   */
+  private void sort() {
+    if (mOrder.length < mNodeCount) {
+      mOrder = new Spring[mNodes.length];
+    } else if (mOrderCount > mNodeCount) {
+      Arrays.fill(mOrder, mNodeCount, mOrderCount, null);
+    }
+    for (int i = 0; i < mNodeCount; i++) {
+      mNodes[i].mGraphOrder = -1;
+    }
+    int count = 0;
+    for (int i = 0; i < mNodeCount; i++) {
+      Spring node = mNodes[i];
+      if (node.mGraphOrder >= 0) {
+        continue;
+      }
+      // the unplaced ancestors of the node are appended root first
+      int depth = 0;
+      for (Spring ancestor = node; ancestor != null && ancestor.mGraphOrder < 0;
+          ancestor = ancestor.mLeader) {
+        depth++;
+      }
+      int index = count + depth;
+      for (Spring ancestor = node; ancestor != null && ancestor.mGraphOrder < 0;
+          ancestor = ancestor.mLeader) {
+        index--;
+        ancestor.mGraphOrder = index;
+        mOrder[index] = ancestor;
+      }
+      count += depth;
+    }
+    mOrderCount = count;
+    mOrderDirty = false;
+  }
+
+  private void checkAlive() {
+    if (mDestroyed) {
+      throw new IllegalStateException("spring graph was destroyed");
+    }
+  }
+}
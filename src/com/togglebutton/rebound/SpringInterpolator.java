@@ -0,0 +1,169 @@
+package com.togglebutton.rebound;
+
+import android.view.animation.Interpolator;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Interpolator following the trajectory of a spring moving from 0 to 1. The trajectory is sampled
+ * once into a lookup table when the interpolator is created, so animators using it run no physics
+ * per frame. Tables are shared through a bounded LRU cache keyed by tension, friction and start
+ * velocity, so any number of interpolators built from the same config reuse one table.
+ *
+ * The spring takes a fixed time to settle, which the animator should use as its duration:
+ * <pre>
+ * SpringInterpolator interpolator = new SpringInterpolator(config);
+ * animator.setInterpolator(interpolator);
+ * animator.setDuration(interpolator.getDurationMillis());
+ * </pre>
+ */
+public class SpringInterpolator implements Interpolator {
+
+  // time between two samples of the trajectory in seconds
+  private static final double SAMPLE_INTERVAL_SEC = 1.0 / 240;
+  // longest trajectory sampled, springs that have not settled by then are cut off
+  private static final double MAX_DURATION_SEC = 10;
+  // displacement and speed below which the spring is considered at rest, same as Spring
+  private static final double REST_THRESHOLD = 0.005;
+  private static final int MAX_CACHED_TRAJECTORIES = 32;
+
+  private static final Map<TrajectoryKey, float[]> sTrajectoryCache =
+      new LinkedHashMap<TrajectoryKey, float[]>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<TrajectoryKey, float[]> eldest) {
+          return size() > MAX_CACHED_TRAJECTORIES;
+        }
+      };
+
+  private final float[] mSamples;
+
+  /**
+   * create an interpolator for a spring starting at rest
+   * @param springConfig config of the spring to follow
+   */
+  public SpringInterpolator(SpringConfig springConfig) {
+    this(springConfig, 0);
+  }
+
+  /**
+   * create an interpolator for a spring starting with the given velocity
+   * @param springConfig config of the spring to follow
+   * @param startVelocity velocity at the start in distances per second, e.g. the fling velocity
+   *        divided by the distance the animation covers
+   */
+  public SpringInterpolator(SpringConfig springConfig, double startVelocity) {
+    if (springConfig == null) {
+      throw new IllegalArgumentException("springConfig is required");
+    }
+    mSamples = getTrajectory(springConfig, startVelocity);
+  }
+
+  /**
+   * get the time the spring takes to settle, the duration to use for the animator
+   * @return the duration in milliseconds
+   */
+  public long getDurationMillis() {
+    return Math.round((mSamples.length - 1) * SAMPLE_INTERVAL_SEC * 1000);
+  }
+
+  @Override
+  public float getInterpolation(float input) {
+    if (input <= 0) {
+      return mSamples[0];
+    }
+    float position = input * (mSamples.length - 1);
+    int index = (int) position;
+    if (index >= mSamples.length - 1) {
+      return mSamples[mSamples.length - 1];
+    }
+    float fraction = position - index;
+    return mSamples[index] + (mSamples[index + 1] - mSamples[index]) * fraction;
+  }
+
+  /**
+   * drop all the cached trajectories
+   */
+  public static void clearCache() {
+    synchronized (sTrajectoryCache) {
+      sTrajectoryCache.clear();
+    }
+  }
+
+  private static float[] getTrajectory(SpringConfig springConfig, double startVelocity) {
+    TrajectoryKey key =
+        new TrajectoryKey(springConfig.tension, springConfig.friction, startVelocity);
+    synchronized (sTrajectoryCache) {
+      float[] samples = sTrajectoryCache.get(key);
+      if (samples == null) {
+        samples = sampleTrajectory(springConfig, startVelocity);
+        sTrajectoryCache.put(key, samples);
+      }
+      return samples;
+    }
+  }
+
+  /**
+   * sample the position of a spring going from 0 to 1 until it comes to rest. Each sample is
+   * solved in closed form from the start state, so no error accumulates along the table.
+   */
+  private static float[] sampleTrajectory(SpringConfig springConfig, double startVelocity) {
+    AnalyticSpringSolver solver = new AnalyticSpringSolver();
+    int maxSamples = (int) Math.ceil(MAX_DURATION_SEC / SAMPLE_INTERVAL_SEC) + 1;
+    float[] samples = new float[64];
+    samples[0] = 0;
+    int count = 1;
+    while (count < maxSamples) {
+      solver.solve(springConfig, -1, startVelocity, count * SAMPLE_INTERVAL_SEC);
+      if (count == samples.length) {
+        float[] grown = new float[count * 2];
+        System.arraycopy(samples, 0, grown, 0, count);
+        samples = grown;
+      }
+      samples[count++] = (float) (1 + solver.displacement);
+      if (Math.abs(solver.displacement) <= REST_THRESHOLD &&
+          Math.abs(solver.velocity) <= REST_THRESHOLD) {
+        break;
+      }
+    }
+    // end exactly on the end value like a spring snapping to rest
+    samples[count - 1] = 1;
+    float[] trajectory = new float[count];
+    System.arraycopy(samples, 0, trajectory, 0, count);
+    return trajectory;
+  }
+
+  private static final class TrajectoryKey {
+    private final double mTension;
+    private final double mFriction;
+    private final double mStartVelocity;
+
+    TrajectoryKey(double tension, double friction, double startVelocity) {
+      mTension = tension;
+      mFriction = friction;
+      mStartVelocity = startVelocity;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof TrajectoryKey)) {
+        return false;
+      }
+      TrajectoryKey other = (TrajectoryKey) o;
+      return Double.compare(mTension, other.mTension) == 0 &&
+          Double.compare(mFriction, other.mFriction) == 0 &&
+          Double.compare(mStartVelocity, other.mStartVelocity) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+      long bits = Double.doubleToLongBits(mTension);
+      bits = bits * 31 + Double.doubleToLongBits(mFriction);
+      bits = bits * 31 + Double.doubleToLongBits(mStartVelocity);
+      return (int) (bits ^ (bits >>> 32));
+    }
+  }
+}
@@ -15,7 +15,16 @@ package com.togglebutton.rebound;
  */
 public abstract class SpringLooper {
 
+  // vsync interval of a 60Hz display
+  public static final long DEFAULT_FRAME_INTERVAL_NANOS = 1000000000L / 60;
+
   protected BaseSpringSystem mSpringSystem;
+  private FrameTimeTrace mFrameTimeTrace;
+  private long mFrameIntervalNanos = DEFAULT_FRAME_INTERVAL_NANOS;
+  // frame statistics, updated on the looper's thread
+  private long mFrameCount;
+  private long mJankFrameCount;
+  private long mSkippedFrameCount;
 
   /**
    * Set the BaseSpringSystem that the SpringLooper will call back to.
@@ -25,6 +34,91 @@ public abstract class SpringLooper {
     mSpringSystem = springSystem;
   }
 
+  /**
+   * Record the delta of every frame this looper runs into a trace, or stop recording when null.
+   * The trace is filled on the looper's thread.
+   * @param frameTimeTrace the trace to append to
+   */
+  public void setFrameTimeTrace(FrameTimeTrace frameTimeTrace) {
+    mFrameTimeTrace = frameTimeTrace;
+  }
+
+  /**
+   * Run one frame of the BaseSpringSystem, recording its delta if a trace is set.
+   * @param ellapsedMillis time elapsed since the previous frame in millis
+   */
+  protected void loopSpringSystem(double ellapsedMillis) {
+    FrameTimeTrace frameTimeTrace = mFrameTimeTrace;
+    if (frameTimeTrace != null) {
+      frameTimeTrace.add(ellapsedMillis);
+    }
+    mSpringSystem.loop(ellapsedMillis);
+  }
+
+  /**
+   * Run one frame of the BaseSpringSystem from a nanosecond frame delta, counting the frames that
+   * came one or more frame intervals late as jank.
+   * @param deltaNanos time elapsed since the previous frame in nanoseconds
+   */
+  protected void loopSpringSystemNanos(long deltaNanos) {
+    if (deltaNanos < 0) {
+      deltaNanos = 0;
+    }
+    mFrameCount++;
+    long skippedFrames = (deltaNanos + mFrameIntervalNanos / 2) / mFrameIntervalNanos - 1;
+    if (skippedFrames > 0) {
+      mJankFrameCount++;
+      mSkippedFrameCount += skippedFrames;
+    }
+    loopSpringSystem(deltaNanos / 1000000.0);
+  }
+
+  /**
+   * Set the expected time between two frames, used to detect skipped frames. Defaults to the
+   * vsync interval of a 60Hz display.
+   * @param frameIntervalNanos frame interval in nanoseconds
+   */
+  public void setFrameIntervalNanos(long frameIntervalNanos) {
+    if (frameIntervalNanos <= 0) {
+      throw new IllegalArgumentException("frameIntervalNanos must be positive");
+    }
+    mFrameIntervalNanos = frameIntervalNanos;
+  }
+
+  public long getFrameIntervalNanos() {
+    return mFrameIntervalNanos;
+  }
+
+  /**
+   * @return the number of frames timed by {@link #loopSpringSystemNanos(long)}
+   */
+  public long getFrameCount() {
+    return mFrameCount;
+  }
+
+  /**
+   * @return the number of frames that came after one or more skipped frames
+   */
+  public long getJankFrameCount() {
+    return mJankFrameCount;
+  }
+
+  /**
+   * @return the total number of frame intervals skipped between timed frames
+   */
+  public long getSkippedFrameCount() {
+    return mSkippedFrameCount;
+  }
+
+  /**
+   * clear the frame, jank and skipped frame counters
+   */
+  public void resetFrameStats() {
+    mFrameCount = 0;
+    mJankFrameCount = 0;
+    mSkippedFrameCount = 0;
+  }
+
   /**
    * The BaseSpringSystem has requested that the looper begins running this {@link Runnable}
    * on every frame. The {@link Runnable} will continue running on every frame until
@@ -0,0 +1,23 @@
+package com.togglebutton.rebound;
+
+/**
+ * SpringSystemListener that is also told once per loop which springs were advanced, so a consumer
+ * driven by many springs can recompute and invalidate once per frame instead of once per
+ * {@link SpringListener#onSpringUpdate(Spring)}.
+ *
+ * The updated springs include the threaded springs of a {@link ThreadedSpringSystem}, as their
+ * Spring views. The batch springs of a {@link BatchSpringSystem} are reported by handle, see
+ * {@link UpdatedSprings#getBatchSpringHandle(int)}. {@link VectorSpring}s are not Springs and are
+ * not reported; use a {@link VectorSpringListener} for them.
+ */
+public interface SpringSystemFrameListener extends SpringSystemListener {
+
+  /**
+   * Runs after each pass through the physics integration loop in which at least one spring was
+   * advanced, before {@link #onAfterIntegrate(BaseSpringSystem)}. The updated springs are reused
+   * by the next loop and must not be kept past this call.
+   * @param springSystem the BaseSpringSystem listened to
+   * @param updatedSprings the springs advanced in this loop
+   */
+  void onSpringsUpdated(BaseSpringSystem springSystem, UpdatedSprings updatedSprings);
+}
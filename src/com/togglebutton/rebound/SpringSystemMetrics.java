@@ -0,0 +1,242 @@
+package com.togglebutton.rebound;
+
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Per-frame metrics of a {@link BaseSpringSystem}, collected only while enabled with
+ * {@link BaseSpringSystem#setMetricsEnabled(boolean)}. Values are recorded on the looper thread
+ * into lock-free histograms and counters that can be sampled from any thread, and each frame is
+ * also published to the {@link SpringSystemMetricsListener}s.
+ */
+public class SpringSystemMetrics {
+
+  private final Histogram mLoopTimeNanos = new Histogram();
+  private final Histogram mIterations = new Histogram();
+  private final Histogram mActiveSprings = new Histogram();
+  private final Histogram mListenerTimeNanos = new Histogram();
+  private final AtomicLong mFrameCount = new AtomicLong();
+  private final AtomicLong mTotalIterations = new AtomicLong();
+  private final AtomicLong mClampedSpringCount = new AtomicLong();
+  private final CopyOnWriteArraySet<SpringSystemMetricsListener> mListeners =
+      new CopyOnWriteArraySet<SpringSystemMetricsListener>();
+
+  // accumulators for the frame being run, only touched on the looper thread
+  private int mFrameIterations;
+  private int mFrameActiveSprings;
+  private int mFrameClampedSprings;
+  private long mFrameListenerNanos;
+
+  SpringSystemMetrics() {
+  }
+
+  /**
+   * get the wall time of each loop of the system, including listener dispatch
+   * @return histogram of the loop time in nanoseconds
+   */
+  public Histogram getLoopTimeNanos() {
+    return mLoopTimeNanos;
+  }
+
+  /**
+   * get the number of solver steps run in each loop, summed over all the springs
+   * @return histogram of the solver steps per loop
+   */
+  public Histogram getIterations() {
+    return mIterations;
+  }
+
+  /**
+   * get the number of springs advanced in each loop
+   * @return histogram of the active springs per loop
+   */
+  public Histogram getActiveSprings() {
+    return mActiveSprings;
+  }
+
+  /**
+   * get the time spent in system and spring listeners in each loop
+   * @return histogram of the listener time in nanoseconds
+   */
+  public Histogram getListenerTimeNanos() {
+    return mListenerTimeNanos;
+  }
+
+  /**
+   * @return the number of loops recorded
+   */
+  public long getFrameCount() {
+    return mFrameCount.get();
+  }
+
+  /**
+   * @return the number of solver steps run over all the recorded loops
+   */
+  public long getTotalIterations() {
+    return mTotalIterations.get();
+  }
+
+  /**
+   * @return the number of spring advances that had their delta clamped to the maximum simulated
+   *         time per frame, i.e. springs that fell behind real time
+   */
+  public long getClampedSpringCount() {
+    return mClampedSpringCount.get();
+  }
+
+  /**
+   * clear all the histograms and counters
+   */
+  public void reset() {
+    mLoopTimeNanos.reset();
+    mIterations.reset();
+    mActiveSprings.reset();
+    mListenerTimeNanos.reset();
+    mFrameCount.set(0);
+    mTotalIterations.set(0);
+    mClampedSpringCount.set(0);
+  }
+
+  /** listeners **/
+
+  public void addListener(SpringSystemMetricsListener newListener) {
+    if (newListener == null) {
+      throw new IllegalArgumentException("newListener is required");
+    }
+    mListeners.add(newListener);
+  }
+
+  public void removeListener(SpringSystemMetricsListener listenerToRemove) {
+    if (listenerToRemove == null) {
+      throw new IllegalArgumentException("listenerToRemove is required");
+    }
+    mListeners.remove(listenerToRemove);
+  }
+
+  public void removeAllListeners() {
+    mListeners.clear();
+  }
+
+  /** recording, called by the spring system on the looper thread **/
+
+  void beginFrame() {
+    mFrameIterations = 0;
+    mFrameActiveSprings = 0;
+    mFrameClampedSprings = 0;
+    mFrameListenerNanos = 0;
+  }
+
+  void addIterations(int iterations) {
+    mFrameIterations += iterations;
+  }
+
+  void addActiveSprings(int activeSprings) {
+    mFrameActiveSprings += activeSprings;
+  }
+
+  void addClampedSprings(int clampedSprings) {
+    mFrameClampedSprings += clampedSprings;
+  }
+
+  void addListenerNanos(long nanos) {
+    mFrameListenerNanos += nanos;
+  }
+
+  void endFrame(BaseSpringSystem springSystem, long loopTimeNanos) {
+    mLoopTimeNanos.record(loopTimeNanos);
+    mIterations.record(mFrameIterations);
+    mActiveSprings.record(mFrameActiveSprings);
+    mListenerTimeNanos.record(mFrameListenerNanos);
+    mFrameCount.incrementAndGet();
+    mTotalIterations.addAndGet(mFrameIterations);
+    mClampedSpringCount.addAndGet(mFrameClampedSprings);
+    for (SpringSystemMetricsListener listener : mListeners) {
+      listener.onFrameMetrics(
+          springSystem,
+          loopTimeNanos,
+          mFrameIterations,
+          mFrameActiveSprings,
+          mFrameClampedSprings,
+          mFrameListenerNanos);
+    }
+  }
+
+  /**
+   * Histogram with power of two buckets. Bucket 0 counts zeros and bucket i counts the values in
+   * [2^(i-1), 2^i). Recording is a single atomic increment.
+   */
+  public static final class Histogram {
+
+    public static final int BUCKET_COUNT = 64;
+
+    private final AtomicLongArray mBuckets = new AtomicLongArray(BUCKET_COUNT);
+
+    Histogram() {
+    }
+
+    void record(long value) {
+      int bucket = value <= 0 ? 0 : 64 - Long.numberOfLeadingZeros(value);
+      mBuckets.incrementAndGet(Math.min(bucket, BUCKET_COUNT - 1));
+    }
+
+    /**
+     * @param bucket index of the bucket
+     * @return number of values recorded in the bucket
+     */
+    public long getBucketCount(int bucket) {
+      return mBuckets.get(bucket);
+    }
+
+    /**
+     * @param bucket index of the bucket
+     * @return the exclusive upper bound of the values counted in the bucket
+     */
+    public static long getBucketUpperBound(int bucket) {
+      return bucket >= BUCKET_COUNT - 1 ? Long.MAX_VALUE : 1L << bucket;
+    }
+
+    /**
+     * @return the number of values recorded
+     */
+    public long getCount() {
+      long count = 0;
+      for (int i = 0; i < BUCKET_COUNT; i++) {
+        count += mBuckets.get(i);
+      }
+      return count;
+    }
+
+    /**
+     * get an upper bound of a percentile of the recorded values
+     * @param percentile the percentile between 0 and 100
+     * @return the upper bound of the bucket holding the percentile, 0 if nothing was recorded
+     */
+    public long getPercentile(double percentile) {
+      long[] counts = new long[BUCKET_COUNT];
+      long total = 0;
+      for (int i = 0; i < BUCKET_COUNT; i++) {
+        counts[i] = mBuckets.get(i);
+        total += counts[i];
+      }
+      if (total == 0) {
+        return 0;
+      }
+      long rank = (long) Math.ceil(total * Math.max(0, Math.min(100, percentile)) / 100.0);
+      long seen = 0;
+      for (int i = 0; i < BUCKET_COUNT; i++) {
+        seen += counts[i];
+        if (seen >= rank && counts[i] > 0) {
+          return getBucketUpperBound(i);
+        }
+      }
+      return getBucketUpperBound(BUCKET_COUNT - 1);
+    }
+
+    void reset() {
+      for (int i = 0; i < BUCKET_COUNT; i++) {
+        mBuckets.set(i, 0);
+      }
+    }
+  }
+}
@@ -0,0 +1,25 @@
+package com.togglebutton.rebound;
+
+/**
+ * SpringSystemMetricsListener receives the metrics of every loop of a {@link BaseSpringSystem}
+ * that has metrics enabled. It is called on the looper thread at the end of the loop.
+ */
+public interface SpringSystemMetricsListener {
+
+  /**
+   * Runs after each loop of the spring system.
+   * @param springSystem the BaseSpringSystem listened to
+   * @param loopTimeNanos wall time of the loop, including listener dispatch
+   * @param iterations solver steps run in the loop, summed over all the springs
+   * @param activeSprings number of springs advanced in the loop
+   * @param clampedSprings number of springs whose delta was clamped to the maximum simulated time
+   * @param listenerTimeNanos time spent in system and spring listeners
+   */
+  void onFrameMetrics(
+      BaseSpringSystem springSystem,
+      long loopTimeNanos,
+      int iterations,
+      int activeSprings,
+      int clampedSprings,
+      long listenerTimeNanos);
+}
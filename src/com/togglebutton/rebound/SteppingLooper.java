@@ -25,7 +25,7 @@ public class SteppingLooper extends SpringLooper {
       return false;
     }
     long currentTime = mLastTime + interval;
-    mSpringSystem.loop(currentTime);
+    loopSpringSystem(interval);
     mLastTime = currentTime;
     return mSpringSystem.getIsIdle();
   }
@@ -34,7 +34,7 @@ public class SynchronousLooper extends SpringLooper {
       if (mRunning == false) {
         break;
       }
-      mSpringSystem.loop(mTimeStep);
+      loopSpringSystem(mTimeStep);
     }
   }
 
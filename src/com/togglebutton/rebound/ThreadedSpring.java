@@ -0,0 +1,180 @@
+package com.togglebutton.rebound;
+
+/**
+ * {@link Spring} view of a spring simulated on the worker thread of a
+ * {@link ThreadedSpringSystem}. The accessors read and write the UI thread copy of the state kept
+ * by the system; it is never registered with or advanced by the system as a regular Spring.
+ * Settings the worker does not have throw UnsupportedOperationException instead of being silently
+ * ignored.
+ */
+final class ThreadedSpring extends Spring {
+
+  private final ThreadedSpringSystem mThreadedSystem;
+  private final int mThreadedHandle;
+
+  ThreadedSpring(ThreadedSpringSystem threadedSystem, int handle) {
+    super(threadedSystem);
+    mThreadedSystem = threadedSystem;
+    mThreadedHandle = handle;
+  }
+
+  @Override
+  public void destroy() {
+    mThreadedSystem.destroyThreadedSpring(mThreadedHandle);
+  }
+
+  @Override
+  public Spring setSpringConfig(SpringConfig springConfig) {
+    // called from the Spring constructor before the view is bound to its handle
+    if (mThreadedSystem == null) {
+      return super.setSpringConfig(springConfig);
+    }
+    mThreadedSystem.setSpringConfig(mThreadedHandle, springConfig);
+    return this;
+  }
+
+  @Override
+  public SpringConfig getSpringConfig() {
+    return mThreadedSystem.getSpringConfig(mThreadedHandle);
+  }
+
+  @Override
+  public Spring setCurrentValue(double currentValue) {
+    mThreadedSystem.setCurrentValue(mThreadedHandle, currentValue);
+    return this;
+  }
+
+  @Override
+  public double getCurrentValue() {
+    return mThreadedSystem.getCurrentValue(mThreadedHandle);
+  }
+
+  @Override
+  public double getCurrentDisplacementDistance() {
+    return Math.abs(getEndValue() - getCurrentValue());
+  }
+
+  @Override
+  public Spring setEndValue(double endValue) {
+    mThreadedSystem.setEndValue(mThreadedHandle, endValue);
+    return this;
+  }
+
+  @Override
+  public double getEndValue() {
+    return mThreadedSystem.getEndValue(mThreadedHandle);
+  }
+
+  @Override
+  public Spring setVelocity(double velocity) {
+    mThreadedSystem.setVelocity(mThreadedHandle, velocity);
+    return this;
+  }
+
+  @Override
+  public double getVelocity() {
+    return mThreadedSystem.getVelocity(mThreadedHandle);
+  }
+
+  @Override
+  public double getStartValue() {
+    return mThreadedSystem.getStartValue(mThreadedHandle);
+  }
+
+  @Override
+  public Spring setRestSpeedThreshold(double restSpeedThreshold) {
+    throw new UnsupportedOperationException(
+        "threaded springs share the rest thresholds of their system");
+  }
+
+  @Override
+  public double getRestSpeedThreshold() {
+    return mThreadedSystem.getRestSpeedThreshold();
+  }
+
+  @Override
+  public Spring setRestDisplacementThreshold(double displacementFromRestThreshold) {
+    throw new UnsupportedOperationException(
+        "threaded springs share the rest thresholds of their system");
+  }
+
+  @Override
+  public double getRestDisplacementThreshold() {
+    return mThreadedSystem.getRestDisplacementThreshold();
+  }
+
+  @Override
+  public Spring setOvershootClampingEnabled(boolean overshootClampingEnabled) {
+    if (overshootClampingEnabled) {
+      throw new UnsupportedOperationException("threaded springs do not clamp overshoot");
+    }
+    return this;
+  }
+
+  @Override
+  public boolean isOvershootClampingEnabled() {
+    return false;
+  }
+
+  @Override
+  public Spring setAnalyticSolverEnabled(boolean analyticSolverEnabled) {
+    if (analyticSolverEnabled) {
+      throw new UnsupportedOperationException("threaded springs are always integrated with RK4");
+    }
+    return this;
+  }
+
+  @Override
+  public boolean isAnalyticSolverEnabled() {
+    return false;
+  }
+
+  @Override
+  public Spring setVisualRestThreshold(double visualRestThreshold) {
+    if (visualRestThreshold > 0) {
+      throw new UnsupportedOperationException("threaded springs have no visual rest threshold");
+    }
+    return this;
+  }
+
+  @Override
+  public double getVisualRestThreshold() {
+    return 0;
+  }
+
+  @Override
+  public double getRemainingMotion() {
+    return mThreadedSystem.getRemainingMotion(mThreadedHandle);
+  }
+
+  @Override
+  public double getEstimatedTimeToRest() {
+    return mThreadedSystem.getEstimatedTimeToRest(mThreadedHandle);
+  }
+
+  @Override
+  public boolean isOvershooting() {
+    return mThreadedSystem.isOvershooting(mThreadedHandle);
+  }
+
+  @Override
+  public boolean wasAtRest() {
+    return mThreadedSystem.wasAtRest(mThreadedHandle);
+  }
+
+  @Override
+  public boolean isAtRest() {
+    return mThreadedSystem.isAtRest(mThreadedHandle);
+  }
+
+  @Override
+  public Spring setAtRest() {
+    mThreadedSystem.setAtRest(mThreadedHandle);
+    return this;
+  }
+
+  @Override
+  public boolean currentValueIsApproximately(double value) {
+    return Math.abs(getCurrentValue() - value) <= mThreadedSystem.getRestDisplacementThreshold();
+  }
+}
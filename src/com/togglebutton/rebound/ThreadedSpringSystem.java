@@ -0,0 +1,745 @@
+package com.togglebutton.rebound;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * ThreadedSpringSystem is a {@link BaseSpringSystem} that integrates its threaded springs on a
+ * dedicated worker thread, one frame ahead of the looper thread. Each looper frame hands the
+ * frame delta to the worker and dispatches the listeners of the threaded springs from the latest
+ * state the worker has published, so heavy spring scenes do not add integration time to the UI
+ * thread.
+ *
+ * Setters reach the worker through a preallocated single producer, single consumer ring of
+ * commands, so driving threaded springs from input events allocates nothing. The worker publishes
+ * positions and velocities through a lock-free triple buffer. Every
+ * published snapshot holds all the springs that changed since the last snapshot the looper thread
+ * is known to have taken, and listener transitions are derived from the state in the snapshot, so
+ * a snapshot replaced before the looper thread got to it loses no activate or rest callbacks.
+ * A spring that comes to rest and moves again between two looper frames only gets updates.
+ *
+ * Threaded springs are created with {@link #createThreadedSpring(SpringConfig)}, share the rest
+ * thresholds of the system and are always integrated with RK4, without overshoot clamping or a
+ * visual rest threshold; their Spring views throw UnsupportedOperationException for those
+ * settings. They must be used from the looper thread. Springs created with
+ * {@link #createSpring()} keep working alongside them and are advanced on the looper thread.
+ */
+public class ThreadedSpringSystem extends BaseSpringSystem {
+
+  // maximum amount of time to simulate per physics iteration in seconds (4 frames at 60 FPS)
+  private static final double MAX_DELTA_TIME_SEC = 0.064;
+  // fixed timestep to use in the physics solver in seconds
+  private static final double SOLVER_TIMESTEP_SEC = PhysicsState.SOLVER_TIMESTEP_SEC;
+  private static final int INITIAL_CAPACITY = 16;
+
+  // triple buffer state: index of the ready snapshot, FRESH until the looper thread takes it
+  private static final int INDEX_MASK = 3;
+  private static final int FRESH = 4;
+
+  private static final int COMMAND_CREATE = 0;
+  private static final int COMMAND_DESTROY = 1;
+  private static final int COMMAND_SET_CONFIG = 2;
+  private static final int COMMAND_SET_POSITION = 3;
+  private static final int COMMAND_SET_VELOCITY = 4;
+  private static final int COMMAND_SET_END_VALUE = 5;
+  private static final int COMMAND_SET_REST_THRESHOLDS = 6;
+  private static final int COMMAND_SET_AT_REST = 7;
+
+  // commands the ring holds before the looper thread has to wait for the worker
+  private static final int COMMAND_CAPACITY = 1024;
+  private static final int COMMAND_MASK = COMMAND_CAPACITY - 1;
+
+  // shared between the looper thread and the worker. The command with sequence n is stored in
+  // slot n & COMMAND_MASK; the looper thread fills the slot and then publishes n, the worker reads
+  // the slots up to the published sequence and then releases them for reuse.
+  private final int[] mCommandTypes = new int[COMMAND_CAPACITY];
+  private final int[] mCommandHandles = new int[COMMAND_CAPACITY];
+  private final double[] mCommandA = new double[COMMAND_CAPACITY];
+  private final double[] mCommandB = new double[COMMAND_CAPACITY];
+  private final AtomicLong mPublishedCommand = new AtomicLong();
+  private final AtomicLong mReleasedCommand = new AtomicLong();
+  private final AtomicLong mPendingDeltaNanos = new AtomicLong();
+  private volatile long mRequestedFrame;
+  private final Snapshot[] mSnapshots = {new Snapshot(), new Snapshot(), new Snapshot()};
+  private final AtomicInteger mReady = new AtomicInteger(1);
+  private final Worker mWorker = new Worker();
+  private volatile boolean mShutdown;
+  private Thread mWorkerThread;
+
+  // looper thread copy of the state of each handle
+  private ThreadedSpring[] mViews = new ThreadedSpring[INITIAL_CAPACITY];
+  private double[] mPosition = new double[INITIAL_CAPACITY];
+  private double[] mVelocity = new double[INITIAL_CAPACITY];
+  private double[] mEndValue = new double[INITIAL_CAPACITY];
+  private double[] mStartValue = new double[INITIAL_CAPACITY];
+  private SpringConfig[] mSpringConfig = new SpringConfig[INITIAL_CAPACITY];
+  // command that last wrote the position or velocity, older snapshots do not overwrite them
+  private long[] mLastWrite = new long[INITIAL_CAPACITY];
+  private boolean[] mMoving = new boolean[INITIAL_CAPACITY];
+  private int[] mActivations = new int[INITIAL_CAPACITY];
+  private int[] mFreeHandles = new int[INITIAL_CAPACITY];
+  private int mFreeCount;
+  private int mHandleCount;
+  private int mSpringCount;
+  // destroyed handles the worker may still report, reusable once it processed the destroy
+  private int[] mDestroyedHandles = new int[INITIAL_CAPACITY];
+  private long[] mDestroyedAt = new long[INITIAL_CAPACITY];
+  private int mDestroyedCount;
+
+  private int mFront;
+  private long mLastCommand;
+  private long mLastFrame;
+  private long mSnapshotCommand;
+  private long mSnapshotFrame;
+  private int mSnapshotActiveCount;
+  private double mRestSpeedThreshold = 0.005;
+  private double mDisplacementFromRestThreshold = 0.005;
+
+  /**
+   * Create a new ThreadedSpringSystem providing the appropriate constructor parameters to work
+   * properly in an Android environment.
+   * @return the ThreadedSpringSystem
+   */
+  public static ThreadedSpringSystem create() {
+    return new ThreadedSpringSystem(AndroidSpringLooperFactory.createSpringLooper());
+  }
+
+  /**
+   * create a new ThreadedSpringSystem
+   * @param springLooper parameterized springLooper to allow testability of the
+   *        physics loop
+   */
+  public ThreadedSpringSystem(SpringLooper springLooper) {
+    super(springLooper);
+  }
+
+  /**
+   * create a spring at rest at 0 that is integrated on the worker thread. The worker thread is
+   * started with the first threaded spring.
+   * @param springConfig config for the spring
+   * @return the Spring view of the threaded spring
+   */
+  public Spring createThreadedSpring(SpringConfig springConfig) {
+    if (springConfig == null) {
+      throw new IllegalArgumentException("springConfig is required");
+    }
+    if (mShutdown) {
+      throw new IllegalStateException("system was shut down");
+    }
+    startWorker();
+    int handle;
+    if (mFreeCount > 0) {
+      handle = mFreeHandles[--mFreeCount];
+    } else {
+      if (mHandleCount == mPosition.length) {
+        resize(mHandleCount * 2);
+      }
+      handle = mHandleCount++;
+    }
+    mPosition[handle] = 0;
+    mVelocity[handle] = 0;
+    mEndValue[handle] = 0;
+    mStartValue[handle] = 0;
+    mSpringConfig[handle] = springConfig;
+    mMoving[handle] = false;
+    mActivations[handle] = 0;
+    mSpringCount++;
+    mLastWrite[handle] = send(COMMAND_CREATE, handle, springConfig.tension, springConfig.friction);
+    ThreadedSpring view = new ThreadedSpring(this, handle);
+    mViews[handle] = view;
+    return view;
+  }
+
+  private void startWorker() {
+    if (mWorkerThread == null) {
+      mWorkerThread = new Thread(mWorker, "ThreadedSpringSystem");
+      mWorkerThread.setDaemon(true);
+      mWorkerThread.start();
+    }
+  }
+
+  /**
+   * Stop the worker thread. Threaded springs stop moving and no more can be created.
+   */
+  public void shutdown() {
+    mShutdown = true;
+    if (mWorkerThread != null) {
+      LockSupport.unpark(mWorkerThread);
+    }
+  }
+
+  /**
+   * get the number of live threaded springs
+   * @return the threaded spring count
+   */
+  public int getThreadedSpringCount() {
+    return mSpringCount;
+  }
+
+  void destroyThreadedSpring(int handle) {
+    checkHandle(handle);
+    mViews[handle].removeAllListeners();
+    mViews[handle] = null;
+    mSpringConfig[handle] = null;
+    mSpringCount--;
+    if (mDestroyedCount == mDestroyedHandles.length) {
+      mDestroyedHandles = Arrays.copyOf(mDestroyedHandles, mDestroyedCount * 2);
+      mDestroyedAt = Arrays.copyOf(mDestroyedAt, mDestroyedCount * 2);
+    }
+    mDestroyedHandles[mDestroyedCount] = handle;
+    mDestroyedAt[mDestroyedCount] = send(COMMAND_DESTROY, handle, 0, 0);
+    mDestroyedCount++;
+  }
+
+  void setSpringConfig(int handle, SpringConfig springConfig) {
+    checkHandle(handle);
+    if (springConfig == null) {
+      throw new IllegalArgumentException("springConfig is required");
+    }
+    mSpringConfig[handle] = springConfig;
+    send(COMMAND_SET_CONFIG, handle, springConfig.tension, springConfig.friction);
+  }
+
+  SpringConfig getSpringConfig(int handle) {
+    checkHandle(handle);
+    return mSpringConfig[handle];
+  }
+
+  @Override
+  public int replaceSpringConfig(SpringConfig oldConfig, SpringConfig newConfig) {
+    int replaced = super.replaceSpringConfig(oldConfig, newConfig);
+    for (int handle = 0; handle < mHandleCount; handle++) {
+      if (mViews[handle] != null && mSpringConfig[handle] == oldConfig) {
+        setSpringConfig(handle, newConfig);
+        replaced++;
+      }
+    }
+    return replaced;
+  }
+
+  void setCurrentValue(int handle, double currentValue) {
+    checkHandle(handle);
+    mStartValue[handle] = currentValue;
+    mPosition[handle] = currentValue;
+    mLastWrite[handle] = send(COMMAND_SET_POSITION, handle, currentValue, 0);
+    resumeLooper();
+    mViews[handle].notifyUpdate();
+  }
+
+  double getCurrentValue(int handle) {
+    checkHandle(handle);
+    return mPosition[handle];
+  }
+
+  void setEndValue(int handle, double endValue) {
+    checkHandle(handle);
+    if (mEndValue[handle] == endValue && isAtRest(handle)) {
+      return;
+    }
+    mStartValue[handle] = mPosition[handle];
+    mEndValue[handle] = endValue;
+    send(COMMAND_SET_END_VALUE, handle, endValue, 0);
+    resumeLooper();
+    mViews[handle].notifyEndStateChange();
+  }
+
+  double getEndValue(int handle) {
+    checkHandle(handle);
+    return mEndValue[handle];
+  }
+
+  void setVelocity(int handle, double velocity) {
+    checkHandle(handle);
+    mVelocity[handle] = velocity;
+    mLastWrite[handle] = send(COMMAND_SET_VELOCITY, handle, velocity, 0);
+    resumeLooper();
+  }
+
+  double getVelocity(int handle) {
+    checkHandle(handle);
+    return mVelocity[handle];
+  }
+
+  boolean isAtRest(int handle) {
+    checkHandle(handle);
+    return Math.abs(mVelocity[handle]) <= mRestSpeedThreshold &&
+        Math.abs(mEndValue[handle] - mPosition[handle]) <= mDisplacementFromRestThreshold;
+  }
+
+  double getStartValue(int handle) {
+    checkHandle(handle);
+    return mStartValue[handle];
+  }
+
+  /**
+   * bring a threaded spring to rest at the position last published to the looper thread, which
+   * is where its listeners last saw it
+   */
+  void setAtRest(int handle) {
+    checkHandle(handle);
+    double position = mPosition[handle];
+    mEndValue[handle] = position;
+    mVelocity[handle] = 0;
+    mLastWrite[handle] = send(COMMAND_SET_AT_REST, handle, position, 0);
+    resumeLooper();
+  }
+
+  boolean wasAtRest(int handle) {
+    checkHandle(handle);
+    return !mMoving[handle];
+  }
+
+  boolean isOvershooting(int handle) {
+    checkHandle(handle);
+    double start = mStartValue[handle];
+    double end = mEndValue[handle];
+    double position = mPosition[handle];
+    return (start < end && position > end) || (start > end && position < end);
+  }
+
+  double getRemainingMotion(int handle) {
+    checkHandle(handle);
+    return Spring.getRemainingMotion(mSpringConfig[handle],
+        mEndValue[handle] - mPosition[handle], mVelocity[handle]);
+  }
+
+  double getEstimatedTimeToRest(int handle) {
+    checkHandle(handle);
+    return Spring.getEstimatedTimeToRest(mSpringConfig[handle],
+        mEndValue[handle] - mPosition[handle], mVelocity[handle], mRestSpeedThreshold,
+        mDisplacementFromRestThreshold, 0);
+  }
+
+  /**
+   * Sets the speed at which threaded springs should be considered at rest.
+   * @param restSpeedThreshold speed pixels per second
+   * @return this system for chaining
+   */
+  public ThreadedSpringSystem setRestSpeedThreshold(double restSpeedThreshold) {
+    mRestSpeedThreshold = restSpeedThreshold;
+    send(COMMAND_SET_REST_THRESHOLDS, -1, mRestSpeedThreshold, mDisplacementFromRestThreshold);
+    return this;
+  }
+
+  public double getRestSpeedThreshold() {
+    return mRestSpeedThreshold;
+  }
+
+  /**
+   * set the threshold of displacement from rest below which threaded springs should be
+   * considered at rest
+   * @param displacementFromRestThreshold displacement to consider resting below
+   * @return this system for chaining
+   */
+  public ThreadedSpringSystem setRestDisplacementThreshold(double displacementFromRestThreshold) {
+    mDisplacementFromRestThreshold = displacementFromRestThreshold;
+    send(COMMAND_SET_REST_THRESHOLDS, -1, mRestSpeedThreshold, mDisplacementFromRestThreshold);
+    return this;
+  }
+
+  public double getRestDisplacementThreshold() {
+    return mDisplacementFromRestThreshold;
+  }
+
+  @Override
+  void advance(double deltaTime) {
+    super.advance(deltaTime);
+    if (mWorkerThread == null || mShutdown) {
+      return;
+    }
+    takeSnapshot();
+    // hand the next frame to the worker while there is anything left for it to do
+    if (mSnapshotActiveCount > 0 || mSnapshotCommand < mLastCommand) {
+      mPendingDeltaNanos.addAndGet((long) (deltaTime * 1000000));
+      mRequestedFrame = ++mLastFrame;
+      LockSupport.unpark(mWorkerThread);
+    }
+  }
+
+  @Override
+  boolean hasActiveSprings() {
+    if (super.hasActiveSprings()) {
+      return true;
+    }
+    if (mWorkerThread == null || mShutdown) {
+      return false;
+    }
+    return mSnapshotActiveCount > 0 ||
+        mSnapshotCommand < mLastCommand ||
+        mSnapshotFrame < mLastFrame;
+  }
+
+  /**
+   * take the latest snapshot published by the worker, if any, and dispatch it to the listeners
+   */
+  private void takeSnapshot() {
+    if ((mReady.get() & FRESH) == 0) {
+      return;
+    }
+    mFront = mReady.getAndSet(mFront) & INDEX_MASK;
+    Snapshot snapshot = mSnapshots[mFront];
+    mSnapshotCommand = snapshot.command;
+    mSnapshotFrame = snapshot.frame;
+    mSnapshotActiveCount = snapshot.activeCount;
+
+    int destroyed = 0;
+    for (int i = 0; i < mDestroyedCount; i++) {
+      if (mDestroyedAt[i] <= snapshot.command) {
+        mFreeHandles[mFreeCount++] = mDestroyedHandles[i];
+      } else {
+        mDestroyedHandles[destroyed] = mDestroyedHandles[i];
+        mDestroyedAt[destroyed] = mDestroyedAt[i];
+        destroyed++;
+      }
+    }
+    mDestroyedCount = destroyed;
+
+    SpringSystemMetrics metrics = getRecordingMetrics();
+    if (metrics != null) {
+      metrics.addActiveSprings(snapshot.activeCount);
+    }
+    long dispatchStart = metrics != null ? System.nanoTime() : 0;
+    for (int i = 0; i < snapshot.count; i++) {
+      int handle = snapshot.handles[i];
+      ThreadedSpring view = mViews[handle];
+      if (view == null) {
+        continue;
+      }
+      if (mLastWrite[handle] <= snapshot.command) {
+        mPosition[handle] = snapshot.positions[i];
+        mVelocity[handle] = snapshot.velocities[i];
+      }
+      boolean moving = snapshot.moving[i];
+      boolean activated = snapshot.activations[i] != mActivations[handle];
+      boolean notifyActivate = !mMoving[handle] && (moving || activated);
+      boolean notifyAtRest = !moving && (mMoving[handle] || notifyActivate);
+      mMoving[handle] = moving;
+      mActivations[handle] = snapshot.activations[i];
+      recordUpdatedSpring(view);
+      view.notifyAdvance(notifyActivate, notifyAtRest);
+    }
+    if (metrics != null) {
+      metrics.addListenerNanos(System.nanoTime() - dispatchStart);
+    }
+  }
+
+  private long send(int type, int handle, double a, double b) {
+    long sequence = mLastCommand + 1;
+    mLastCommand = sequence;
+    if (mShutdown) {
+      // nobody is left to process it
+      return sequence;
+    }
+    while (sequence - mReleasedCommand.get() > COMMAND_CAPACITY) {
+      // the ring is full, let the worker catch up
+      startWorker();
+      LockSupport.unpark(mWorkerThread);
+      Thread.yield();
+    }
+    int slot = (int) (sequence & COMMAND_MASK);
+    mCommandTypes[slot] = type;
+    mCommandHandles[slot] = handle;
+    mCommandA[slot] = a;
+    mCommandB[slot] = b;
+    // ordered after the writes of the slot
+    mPublishedCommand.lazySet(sequence);
+    LockSupport.unpark(mWorkerThread);
+    return sequence;
+  }
+
+  private void checkHandle(int handle) {
+    if (handle < 0 || handle >= mHandleCount || mViews[handle] == null) {
+      throw new IllegalArgumentException("handle " + handle + " does not reference a threaded spring");
+    }
+  }
+
+  private void resize(int capacity) {
+    mViews = Arrays.copyOf(mViews, capacity);
+    mPosition = Arrays.copyOf(mPosition, capacity);
+    mVelocity = Arrays.copyOf(mVelocity, capacity);
+    mEndValue = Arrays.copyOf(mEndValue, capacity);
+    mStartValue = Arrays.copyOf(mStartValue, capacity);
+    mSpringConfig = Arrays.copyOf(mSpringConfig, capacity);
+    mLastWrite = Arrays.copyOf(mLastWrite, capacity);
+    mMoving = Arrays.copyOf(mMoving, capacity);
+    mActivations = Arrays.copyOf(mActivations, capacity);
+    mFreeHandles = Arrays.copyOf(mFreeHandles, capacity);
+  }
+
+  /**
+   * State of the changed springs after a worker frame. Only the worker writes a snapshot, and only
+   * while it owns it as its back buffer.
+   */
+  private static final class Snapshot {
+    long command;
+    long frame;
+    int activeCount;
+    int count;
+    int[] handles = new int[INITIAL_CAPACITY];
+    double[] positions = new double[INITIAL_CAPACITY];
+    double[] velocities = new double[INITIAL_CAPACITY];
+    boolean[] moving = new boolean[INITIAL_CAPACITY];
+    int[] activations = new int[INITIAL_CAPACITY];
+
+    void ensureCapacity(int capacity) {
+      if (capacity > handles.length) {
+        int length = Math.max(capacity, handles.length * 2);
+        handles = Arrays.copyOf(handles, length);
+        positions = Arrays.copyOf(positions, length);
+        velocities = Arrays.copyOf(velocities, length);
+        moving = Arrays.copyOf(moving, length);
+        activations = Arrays.copyOf(activations, length);
+      }
+    }
+  }
+
+  /**
+   * Worker side of the system, every field is only touched on the worker thread.
+   */
+  private final class Worker implements Runnable {
+
+    private double[] mPosition = new double[INITIAL_CAPACITY];
+    private double[] mVelocity = new double[INITIAL_CAPACITY];
+    private double[] mEndValue = new double[INITIAL_CAPACITY];
+    private double[] mTension = new double[INITIAL_CAPACITY];
+    private double[] mFriction = new double[INITIAL_CAPACITY];
+    private int[] mActiveIndex = new int[INITIAL_CAPACITY];
+    private boolean[] mMoving = new boolean[INITIAL_CAPACITY];
+    private int[] mActivations = new int[INITIAL_CAPACITY];
+    private int[] mActive = new int[INITIAL_CAPACITY];
+    private int mActiveCount;
+    // springs changed since the last frame the looper thread is known to have taken
+    private long[] mChangedAt = new long[INITIAL_CAPACITY];
+    private boolean[] mChanged = new boolean[INITIAL_CAPACITY];
+    private int[] mChangedHandles = new int[INITIAL_CAPACITY];
+    private int mChangedCount;
+    private long mFrame;
+    private long mTakenFrame;
+    private long mProcessedCommand;
+    private int mBack = 2;
+    private double mTimeAccumulator;
+    private final PhysicsState mState = new PhysicsState();
+    private double mRestSpeedThreshold = 0.005;
+    private double mDisplacementFromRestThreshold = 0.005;
+
+    @Override
+    public void run() {
+      long publishedFrame = 0;
+      while (!mShutdown) {
+        boolean processed = processCommands();
+        long requestedFrame = mRequestedFrame;
+        long deltaNanos = mPendingDeltaNanos.getAndSet(0);
+        if (requestedFrame != publishedFrame) {
+          integrate(deltaNanos / 1000000000.0);
+          publish(requestedFrame);
+          publishedFrame = requestedFrame;
+        } else if (!processed) {
+          LockSupport.park(this);
+        }
+      }
+    }
+
+    private boolean processCommands() {
+      long published = mPublishedCommand.get();
+      long sequence = mProcessedCommand;
+      if (sequence == published) {
+        return false;
+      }
+      while (sequence < published) {
+        sequence++;
+        int slot = (int) (sequence & COMMAND_MASK);
+        int handle = mCommandHandles[slot];
+        double a = mCommandA[slot];
+        double b = mCommandB[slot];
+        switch (mCommandTypes[slot]) {
+          case COMMAND_CREATE:
+            if (handle >= mPosition.length) {
+              resize(Math.max(handle + 1, mPosition.length * 2));
+            }
+            mPosition[handle] = 0;
+            mVelocity[handle] = 0;
+            mEndValue[handle] = 0;
+            mTension[handle] = a;
+            mFriction[handle] = b;
+            mActiveIndex[handle] = -1;
+            mMoving[handle] = false;
+            mActivations[handle] = 0;
+            forgetChange(handle);
+            break;
+          case COMMAND_DESTROY:
+            if (mActiveIndex[handle] >= 0) {
+              removeActive(mActiveIndex[handle]);
+            }
+            mMoving[handle] = false;
+            // the looper thread frees the handle with the first snapshot past this command, so
+            // that snapshot and the later ones must not carry the old spring
+            forgetChange(handle);
+            break;
+          case COMMAND_SET_CONFIG:
+            mTension[handle] = a;
+            mFriction[handle] = b;
+            break;
+          case COMMAND_SET_POSITION:
+            mPosition[handle] = a;
+            activate(handle);
+            break;
+          case COMMAND_SET_VELOCITY:
+            mVelocity[handle] = a;
+            activate(handle);
+            break;
+          case COMMAND_SET_END_VALUE:
+            mEndValue[handle] = a;
+            activate(handle);
+            break;
+          case COMMAND_SET_AT_REST:
+            mPosition[handle] = a;
+            mEndValue[handle] = a;
+            mVelocity[handle] = 0;
+            // integrated once more so the looper thread is told it came to rest
+            activate(handle);
+            break;
+          case COMMAND_SET_REST_THRESHOLDS:
+            mRestSpeedThreshold = a;
+            mDisplacementFromRestThreshold = b;
+            break;
+        }
+      }
+      mProcessedCommand = sequence;
+      mReleasedCommand.lazySet(sequence);
+      return true;
+    }
+
+    /**
+     * Integrate all active springs with the same fixed step RK4 and remainder interpolation as
+     * {@link BatchSpringSystem}, in a scratch state only used by the worker thread.
+     */
+    private void integrate(double realDeltaTime) {
+      mFrame++;
+      mTimeAccumulator += Math.min(realDeltaTime, MAX_DELTA_TIME_SEC);
+      int steps = PhysicsState.countSteps(mTimeAccumulator);
+      mTimeAccumulator -= steps * SOLVER_TIMESTEP_SEC;
+
+      final double[] positions = mPosition;
+      final double[] velocities = mVelocity;
+      final double[] endValues = mEndValue;
+      final double restSpeed = mRestSpeedThreshold;
+      final double restDisplacement = mDisplacementFromRestThreshold;
+      final double alpha = mTimeAccumulator / SOLVER_TIMESTEP_SEC;
+      final PhysicsState state = mState;
+
+      int k = 0;
+      while (k < mActiveCount) {
+        int handle = mActive[k];
+        double endValue = endValues[handle];
+        state.position = positions[handle];
+        state.velocity = velocities[handle];
+        PhysicsState.integrate(state, steps, alpha, endValue, mTension[handle], mFriction[handle]);
+        double position = state.position;
+        double velocity = state.velocity;
+
+        boolean isAtRest = Math.abs(velocity) <= restSpeed &&
+            Math.abs(endValue - position) <= restDisplacement;
+        if (isAtRest) {
+          position = endValue;
+          velocity = 0;
+        }
+        positions[handle] = position;
+        velocities[handle] = velocity;
+        if (!mMoving[handle] && !isAtRest) {
+          mActivations[handle]++;
+        }
+        mMoving[handle] = !isAtRest;
+        markChanged(handle);
+
+        if (isAtRest) {
+          removeActive(k);
+        } else {
+          k++;
+        }
+      }
+    }
+
+    /**
+     * write the changed springs into the back buffer and swap it with the ready one
+     */
+    private void publish(long requestedFrame) {
+      Snapshot snapshot = mSnapshots[mBack];
+      snapshot.command = mProcessedCommand;
+      snapshot.frame = requestedFrame;
+      snapshot.activeCount = mActiveCount;
+      snapshot.ensureCapacity(mChangedCount);
+      int count = 0;
+      for (int i = 0; i < mChangedCount; i++) {
+        int handle = mChangedHandles[i];
+        if (mChangedAt[handle] <= mTakenFrame) {
+          mChanged[handle] = false;
+          continue;
+        }
+        mChangedHandles[count] = handle;
+        snapshot.handles[count] = handle;
+        snapshot.positions[count] = mPosition[handle];
+        snapshot.velocities[count] = mVelocity[handle];
+        snapshot.moving[count] = mMoving[handle];
+        snapshot.activations[count] = mActivations[handle];
+        count++;
+      }
+      mChangedCount = count;
+      snapshot.count = count;
+
+      int previous = mReady.getAndSet(mBack | FRESH);
+      mBack = previous & INDEX_MASK;
+      if ((previous & FRESH) == 0) {
+        // the looper thread took the previous snapshot, so it has seen every change before it
+        mTakenFrame = mFrame - 1;
+      }
+    }
+
+    private void markChanged(int handle) {
+      mChangedAt[handle] = mFrame;
+      if (!mChanged[handle]) {
+        mChanged[handle] = true;
+        mChangedHandles[mChangedCount++] = handle;
+      }
+    }
+
+    /**
+     * drop a pending change of the spring from the next snapshots
+     */
+    private void forgetChange(int handle) {
+      // the next publish() removes the entry, as for a change the looper thread already took
+      mChangedAt[handle] = 0;
+    }
+
+    private void activate(int handle) {
+      if (mActiveIndex[handle] < 0) {
+        mActiveIndex[handle] = mActiveCount;
+        mActive[mActiveCount++] = handle;
+      }
+    }
+
+    private void removeActive(int index) {
+      int handle = mActive[index];
+      int last = mActive[--mActiveCount];
+      mActive[index] = last;
+      mActiveIndex[last] = index;
+      mActiveIndex[handle] = -1;
+    }
+
+    private void resize(int capacity) {
+      mPosition = Arrays.copyOf(mPosition, capacity);
+      mVelocity = Arrays.copyOf(mVelocity, capacity);
+      mEndValue = Arrays.copyOf(mEndValue, capacity);
+      mTension = Arrays.copyOf(mTension, capacity);
+      mFriction = Arrays.copyOf(mFriction, capacity);
+      mActiveIndex = Arrays.copyOf(mActiveIndex, capacity);
+      mMoving = Arrays.copyOf(mMoving, capacity);
+      mActivations = Arrays.copyOf(mActivations, capacity);
+      mActive = Arrays.copyOf(mActive, capacity);
+      mChangedAt = Arrays.copyOf(mChangedAt, capacity);
+      mChanged = Arrays.copyOf(mChanged, capacity);
+      mChangedHandles = Arrays.copyOf(mChangedHandles, capacity);
+    }
+  }
+}
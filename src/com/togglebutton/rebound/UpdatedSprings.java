@@ -0,0 +1,118 @@
+package com.togglebutton.rebound;
+
+import java.util.Arrays;
+
+/**
+ * The springs a {@link BaseSpringSystem} advanced in its current loop, handed to
+ * {@link SpringSystemFrameListener}s. The same instance is refilled on every loop, so reading it
+ * allocates nothing; it is only valid during the callback. The batch springs of a
+ * {@link BatchSpringSystem} are listed separately by handle.
+ */
+public final class UpdatedSprings {
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  private Spring[] mSprings = new Spring[INITIAL_CAPACITY];
+  private int mCount;
+  private int[] mBatchHandles = new int[INITIAL_CAPACITY];
+  private int mBatchCount;
+  // stamp of the current loop, springs recorded in it carry the same stamp
+  private int mFrame;
+
+  UpdatedSprings() {
+  }
+
+  /**
+   * get the number of springs advanced in this loop
+   * @return the updated spring count
+   */
+  public int size() {
+    return mCount;
+  }
+
+  /**
+   * get an updated spring
+   * @param index index of the spring, from 0 to {@link #size()} - 1
+   * @return the spring
+   */
+  public Spring get(int index) {
+    if (index < 0 || index >= mCount) {
+      throw new IndexOutOfBoundsException("index " + index + " out of " + mCount);
+    }
+    return mSprings[index];
+  }
+
+  /**
+   * get the number of batch springs advanced in this loop
+   * @return the updated batch spring count
+   */
+  public int getBatchSpringCount() {
+    return mBatchCount;
+  }
+
+  /**
+   * get the handle of an updated batch spring
+   * @param index index of the batch spring, from 0 to {@link #getBatchSpringCount()} - 1
+   * @return the handle of the batch spring in its {@link BatchSpringSystem}
+   */
+  public int getBatchSpringHandle(int index) {
+    if (index < 0 || index >= mBatchCount) {
+      throw new IndexOutOfBoundsException("index " + index + " out of " + mBatchCount);
+    }
+    return mBatchHandles[index];
+  }
+
+  /**
+   * check if nothing was advanced in this loop
+   * @return true if no spring or batch spring was updated
+   */
+  boolean isEmpty() {
+    return mCount == 0 && mBatchCount == 0;
+  }
+
+  /**
+   * check in constant time if a spring was advanced in this loop
+   * @param spring the spring to check
+   * @return true if the spring was updated
+   */
+  public boolean contains(Spring spring) {
+    return spring != null && spring.mUpdatedFrame == mFrame && spring.mUpdatedSprings == this;
+  }
+
+  /**
+   * start a new loop, dropping the springs of the previous one
+   */
+  void clear() {
+    Arrays.fill(mSprings, 0, mCount, null);
+    mCount = 0;
+    mBatchCount = 0;
+    mFrame++;
+  }
+
+  /**
+   * record a spring advanced in this loop
+   * @param spring the updated spring
+   */
+  void add(Spring spring) {
+    if (contains(spring)) {
+      return;
+    }
+    if (mCount == mSprings.length) {
+      mSprings = Arrays.copyOf(mSprings, mCount * 2);
+    }
+    mSprings[mCount++] = spring;
+    spring.mUpdatedFrame = mFrame;
+    spring.mUpdatedSprings = this;
+  }
+
+  /**
+   * record a batch spring advanced in this loop, each is advanced at most once per loop
+   * @param handle the handle of the updated batch spring
+   */
+  void addBatchSpring(int handle) {
+    if (mBatchCount == mBatchHandles.length) {
+      mBatchHandles = Arrays.copyOf(mBatchHandles, mBatchCount * 2);
+    }
+    mBatchHandles[mBatchCount++] = handle;
+  }
+}
@@ -0,0 +1,398 @@
+package com.togglebutton.rebound;
+
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * Spring moving a point of several dimensions, e.g. a position in 2D or a colour in RGB, towards
+ * its end value. All the components share one config and are integrated in a single pass. The
+ * spring is at rest when the norms of its velocity and displacement vectors fall below the rest
+ * thresholds, so all the components settle on the same frame and listeners get a single update
+ * per frame for the whole vector.
+ */
+public class VectorSpring {
+
+  // fixed timestep to use in the physics solver in seconds
+  private static final double SOLVER_TIMESTEP_SEC = PhysicsState.SOLVER_TIMESTEP_SEC;
+
+  private final BaseSpringSystem mSpringSystem;
+  private final int mDimensions;
+  private final double[] mPosition;
+  private final double[] mVelocity;
+  private final double[] mEndValue;
+  private SpringConfig mSpringConfig;
+  private boolean mWasAtRest = true;
+  private boolean mDestroyed;
+  // thresholds for determining when the spring is at rest, applied to the vector norms
+  private double mRestSpeedThreshold = 0.005;
+  private double mDisplacementFromRestThreshold = 0.005;
+  private double mTimeAccumulator;
+  // scratch state each component is integrated in
+  private final PhysicsState mState = new PhysicsState();
+  private final CopyOnWriteArraySet<VectorSpringListener> mListeners =
+      new CopyOnWriteArraySet<VectorSpringListener>();
+  // slot of this spring in the active list of its system, -1 when it is not active
+  int mActiveIndex = -1;
+  // slot of this spring among all the vector springs of its system, -1 once destroyed
+  int mRegistryIndex = -1;
+
+  /**
+   * create a new vector spring
+   */
+  VectorSpring(BaseSpringSystem springSystem, int dimensions) {
+    if (springSystem == null) {
+      throw new IllegalArgumentException("VectorSpring cannot be created outside of a BaseSpringSystem");
+    }
+    if (dimensions < 1) {
+      throw new IllegalArgumentException("dimensions must be at least 1");
+    }
+    mSpringSystem = springSystem;
+    mDimensions = dimensions;
+    mPosition = new double[dimensions];
+    mVelocity = new double[dimensions];
+    mEndValue = new double[dimensions];
+    setSpringConfig(SpringConfig.defaultConfig);
+  }
+
+  /**
+   * Destroys this spring, it won't be advanced anymore and its listeners are cleared. Do not use
+   * the spring after calling this.
+   */
+  public void destroy() {
+    mListeners.clear();
+    mDestroyed = true;
+    mSpringSystem.deactivateVectorSpring(this);
+    mSpringSystem.unregisterVectorSpring(this);
+  }
+
+  /**
+   * get the number of components of the spring
+   * @return the dimensions
+   */
+  public int getDimensions() {
+    return mDimensions;
+  }
+
+  /**
+   * set the config class
+   * @param springConfig config class for the spring
+   * @return this spring for chaining
+   */
+  public VectorSpring setSpringConfig(SpringConfig springConfig) {
+    if (springConfig == null) {
+      throw new IllegalArgumentException("springConfig is required");
+    }
+    mSpringConfig = springConfig;
+    return this;
+  }
+
+  /**
+   * retrieve the spring config for this spring
+   * @return the SpringConfig applied to this spring
+   */
+  public SpringConfig getSpringConfig() {
+    return mSpringConfig;
+  }
+
+  /**
+   * set the current value of one component
+   * @param component index of the component
+   * @param currentValue the new current value
+   * @return the spring for chaining
+   */
+  public VectorSpring setCurrentValue(int component, double currentValue) {
+    mPosition[component] = currentValue;
+    activate();
+    notifyUpdate();
+    return this;
+  }
+
+  /**
+   * set the current value of all the components
+   * @param currentValues the new current values, one per dimension
+   * @return the spring for chaining
+   */
+  public VectorSpring setCurrentValues(double[] currentValues) {
+    checkValues(currentValues);
+    System.arraycopy(currentValues, 0, mPosition, 0, mDimensions);
+    activate();
+    notifyUpdate();
+    return this;
+  }
+
+  /**
+   * get the current value of one component
+   * @param component index of the component
+   * @return the current value
+   */
+  public double getCurrentValue(int component) {
+    return mPosition[component];
+  }
+
+  /**
+   * copy the current value of all the components
+   * @param out array receiving the values, one per dimension
+   * @return the out array
+   */
+  public double[] getCurrentValues(double[] out) {
+    checkValues(out);
+    System.arraycopy(mPosition, 0, out, 0, mDimensions);
+    return out;
+  }
+
+  /**
+   * set the end value of one component
+   * @param component index of the component
+   * @param endValue the new end value
+   * @return the spring for chaining
+   */
+  public VectorSpring setEndValue(int component, double endValue) {
+    if (mEndValue[component] == endValue && isAtRest()) {
+      return this;
+    }
+    mEndValue[component] = endValue;
+    activate();
+    notifyEndStateChange();
+    return this;
+  }
+
+  /**
+   * set the end value of all the components
+   * @param endValues the new end values, one per dimension
+   * @return the spring for chaining
+   */
+  public VectorSpring setEndValues(double[] endValues) {
+    checkValues(endValues);
+    System.arraycopy(endValues, 0, mEndValue, 0, mDimensions);
+    activate();
+    notifyEndStateChange();
+    return this;
+  }
+
+  /**
+   * get the end value of one component
+   * @param component index of the component
+   * @return the end value
+   */
+  public double getEndValue(int component) {
+    return mEndValue[component];
+  }
+
+  /**
+   * set the velocity of one component
+   * @param component index of the component
+   * @param velocity the new velocity in units per second
+   * @return the spring for chaining
+   */
+  public VectorSpring setVelocity(int component, double velocity) {
+    mVelocity[component] = velocity;
+    activate();
+    return this;
+  }
+
+  /**
+   * get the velocity of one component
+   * @param component index of the component
+   * @return the velocity
+   */
+  public double getVelocity(int component) {
+    return mVelocity[component];
+  }
+
+  /**
+   * Sets the speed below which the spring should be considered at rest.
+   * @param restSpeedThreshold norm of the velocity vector
+   * @return the spring for chaining
+   */
+  public VectorSpring setRestSpeedThreshold(double restSpeedThreshold) {
+    mRestSpeedThreshold = restSpeedThreshold;
+    return this;
+  }
+
+  public double getRestSpeedThreshold() {
+    return mRestSpeedThreshold;
+  }
+
+  /**
+   * set the displacement from rest below which the spring should be considered at rest
+   * @param displacementFromRestThreshold norm of the displacement vector
+   * @return the spring for chaining
+   */
+  public VectorSpring setRestDisplacementThreshold(double displacementFromRestThreshold) {
+    mDisplacementFromRestThreshold = displacementFromRestThreshold;
+    return this;
+  }
+
+  public double getRestDisplacementThreshold() {
+    return mDisplacementFromRestThreshold;
+  }
+
+  /**
+   * check if the velocity and displacement vectors are both within the rest thresholds
+   * @return is the spring at rest
+   */
+  public boolean isAtRest() {
+    double speedSquared = 0;
+    double displacementSquared = 0;
+    for (int i = 0; i < mDimensions; i++) {
+      double displacement = mEndValue[i] - mPosition[i];
+      speedSquared += mVelocity[i] * mVelocity[i];
+      displacementSquared += displacement * displacement;
+    }
+    return speedSquared <= mRestSpeedThreshold * mRestSpeedThreshold &&
+        displacementSquared <= mDisplacementFromRestThreshold * mDisplacementFromRestThreshold;
+  }
+
+  /**
+   * Check if the spring was at rest in the prior iteration.
+   * @return true if the spring was at rest in the prior iteration
+   */
+  public boolean wasAtRest() {
+    return mWasAtRest;
+  }
+
+  /**
+   * Set the spring to be at rest by making its end value equal to its current value and setting
+   * velocity to 0.
+   * @return the spring for chaining
+   */
+  public VectorSpring setAtRest() {
+    for (int i = 0; i < mDimensions; i++) {
+      mEndValue[i] = mPosition[i];
+      mVelocity[i] = 0;
+    }
+    return this;
+  }
+
+  /**
+   * Check if this spring should be advanced by the system.
+   * @return should the system process this spring
+   */
+  boolean systemShouldAdvance() {
+    return !isAtRest() || !wasAtRest();
+  }
+
+  /**
+   * advance all the components in SOLVER_TIMESTEP_SEC sized RK4 steps, interpolating the remainder
+   * like {@link Spring} does
+   * @param realDeltaTime time to simulate in seconds
+   */
+  void advance(double realDeltaTime) {
+    boolean isAtRest = isAtRest();
+    if (isAtRest && mWasAtRest) {
+      return;
+    }
+
+    mTimeAccumulator += Math.min(realDeltaTime, Spring.MAX_DELTA_TIME_SEC);
+    int steps = PhysicsState.countSteps(mTimeAccumulator);
+    mTimeAccumulator -= steps * SOLVER_TIMESTEP_SEC;
+
+    final double tension = mSpringConfig.tension;
+    final double friction = mSpringConfig.friction;
+    final double alpha = mTimeAccumulator / SOLVER_TIMESTEP_SEC;
+    final PhysicsState state = mState;
+
+    for (int i = 0; i < mDimensions; i++) {
+      state.position = mPosition[i];
+      state.velocity = mVelocity[i];
+      PhysicsState.integrate(state, steps, alpha, mEndValue[i], tension, friction);
+      mPosition[i] = state.position;
+      mVelocity[i] = state.velocity;
+    }
+
+    if (isAtRest()) {
+      // snap all the components together
+      for (int i = 0; i < mDimensions; i++) {
+        mPosition[i] = mEndValue[i];
+        mVelocity[i] = 0;
+      }
+      isAtRest = true;
+    }
+
+    boolean notifyActivate = false;
+    if (mWasAtRest) {
+      mWasAtRest = false;
+      notifyActivate = true;
+    }
+    boolean notifyAtRest = false;
+    if (isAtRest) {
+      mWasAtRest = true;
+      notifyAtRest = true;
+    }
+
+    SpringSystemMetrics metrics = mSpringSystem.getRecordingMetrics();
+    if (metrics == null) {
+      notifyAdvance(notifyActivate, notifyAtRest);
+    } else {
+      metrics.addIterations(steps * mDimensions);
+      if (realDeltaTime > Spring.MAX_DELTA_TIME_SEC) {
+        metrics.addClampedSprings(1);
+      }
+      long dispatchStart = System.nanoTime();
+      notifyAdvance(notifyActivate, notifyAtRest);
+      metrics.addListenerNanos(System.nanoTime() - dispatchStart);
+    }
+  }
+
+  private void activate() {
+    if (mDestroyed) {
+      throw new IllegalStateException("vector spring was destroyed");
+    }
+    mSpringSystem.activateVectorSpring(this);
+  }
+
+  private void checkValues(double[] values) {
+    if (values == null) {
+      throw new IllegalArgumentException("values are required");
+    }
+    if (values.length < mDimensions) {
+      throw new IllegalArgumentException("values must have " + mDimensions + " components");
+    }
+  }
+
+  private void notifyAdvance(boolean notifyActivate, boolean notifyAtRest) {
+    for (VectorSpringListener listener : mListeners) {
+      if (notifyActivate) {
+        listener.onSpringActivate(this);
+      }
+      listener.onSpringUpdate(this);
+      if (notifyAtRest) {
+        listener.onSpringAtRest(this);
+      }
+    }
+  }
+
+  private void notifyUpdate() {
+    for (VectorSpringListener listener : mListeners) {
+      listener.onSpringUpdate(this);
+    }
+  }
+
+  private void notifyEndStateChange() {
+    for (VectorSpringListener listener : mListeners) {
+      listener.onSpringEndStateChange(this);
+    }
+  }
+
+  /** listeners **/
+
+  public VectorSpring addListener(VectorSpringListener newListener) {
+    if (newListener == null) {
+      throw new IllegalArgumentException("newListener is required");
+    }
+    mListeners.add(newListener);
+    return this;
+  }
+
+  public VectorSpring removeListener(VectorSpringListener listenerToRemove) {
+    if (listenerToRemove == null) {
+      throw new IllegalArgumentException("listenerToRemove is required");
+    }
+    mListeners.remove(listenerToRemove);
+    return this;
+  }
+
+  public VectorSpring removeAllListeners() {
+    mListeners.clear();
+    return this;
+  }
+}
@@ -0,0 +1,28 @@
+package com.togglebutton.rebound;
+
+public interface VectorSpringListener {
+
+  /**
+   * called whenever the spring is updated, once per frame for all the components
+   * @param spring the VectorSpring sending the update
+   */
+  void onSpringUpdate(VectorSpring spring);
+
+  /**
+   * called whenever the spring achieves a resting state
+   * @param spring the spring that's now resting
+   */
+  void onSpringAtRest(VectorSpring spring);
+
+  /**
+   * called whenever the spring leaves its resting state
+   * @param spring the spring that has left its resting state
+   */
+  void onSpringActivate(VectorSpring spring);
+
+  /**
+   * called whenever the end value of the spring changes
+   * @param spring the spring whose end state has changed
+   */
+  void onSpringEndStateChange(VectorSpring spring);
+}
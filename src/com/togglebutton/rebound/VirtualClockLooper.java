@@ -0,0 +1,80 @@
+package com.togglebutton.rebound;
+
+/**
+ * SpringLooper driven by a virtual clock. Frames only run when {@link #step(double)} is called
+ * with an explicit delta, so the spring system can be run headless on a plain JVM with the exact
+ * frame deltas of a device, e.g. from a {@link FrameTimeTrace}. Frames are counted for jank like
+ * on a device.
+ */
+public class VirtualClockLooper extends SpringLooper {
+
+  private boolean mStarted;
+  private double mElapsedMillis;
+
+  @Override
+  public void start() {
+    mStarted = true;
+  }
+
+  @Override
+  public void stop() {
+    mStarted = false;
+  }
+
+  /**
+   * check if the spring system has asked the looper to run
+   * @return true if started
+   */
+  public boolean isStarted() {
+    return mStarted;
+  }
+
+  /**
+   * run a single frame if the looper is started
+   * @param deltaMillis time elapsed since the previous frame in millis
+   * @return true if a frame was run
+   */
+  public boolean step(double deltaMillis) {
+    if (mSpringSystem == null || !mStarted) {
+      return false;
+    }
+    mElapsedMillis += deltaMillis;
+    loopSpringSystemNanos(Math.round(deltaMillis * 1000000));
+    return true;
+  }
+
+  /**
+   * run the frames of a trace in order, skipping the frames during which the looper was stopped
+   * like a real looper would
+   * @param trace the frame deltas to replay
+   * @return the number of frames run
+   */
+  public int replay(FrameTimeTrace trace) {
+    if (trace == null) {
+      throw new IllegalArgumentException("trace is required");
+    }
+    int frames = 0;
+    for (int i = 0; i < trace.size(); i++) {
+      if (step(trace.getDeltaMillis(i))) {
+        frames++;
+      }
+    }
+    return frames;
+  }
+
+  /**
+   * get the virtual time run so far
+   * @return the sum of the deltas of all the frames run in millis
+   */
+  public double getElapsedMillis() {
+    return mElapsedMillis;
+  }
+
+  /**
+   * reset the virtual clock and the frame statistics
+   */
+  public void reset() {
+    mElapsedMillis = 0;
+    resetFrameStats();
+  }
+}
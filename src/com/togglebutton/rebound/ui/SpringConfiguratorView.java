@@ -35,7 +35,9 @@ import android.widget.Spinner;
 import android.widget.TableLayout;
 import android.widget.TextView;
 
+import com.togglebutton.rebound.BaseSpringSystem;
 import com.togglebutton.rebound.OrigamiValueConverter;
+import com.togglebutton.rebound.SharedSpringSystem;
 import com.togglebutton.rebound.Spring;
 import com.togglebutton.rebound.SpringConfig;
 import com.togglebutton.rebound.SpringConfigRegistry;
@@ -63,6 +65,7 @@ public class SpringConfiguratorView extends FrameLayout {
 
   private final SpinnerAdapter spinnerAdapter;
   private final List<SpringConfig> mSpringConfigs = new ArrayList<SpringConfig>();
+  private final List<BaseSpringSystem> mSpringSystems = new ArrayList<BaseSpringSystem>();
   private final Spring mRevealerSpring;
   private final float mStashPx;
   private final float mRevealPx;
@@ -89,6 +92,7 @@ public class SpringConfiguratorView extends FrameLayout {
 
     SpringSystem springSystem = SpringSystem.create();
     springConfigRegistry = SpringConfigRegistry.getInstance();
+    mSpringSystems.add(SharedSpringSystem.get());
     spinnerAdapter = new SpinnerAdapter(context);
 
     Resources resources = getResources();
@@ -226,6 +230,37 @@ public class SpringConfiguratorView extends FrameLayout {
     mRevealerSpring.destroy();
   }
 
+  /**
+   * add a spring system whose springs are updated live when a config is edited. The shared spring
+   * system is always updated.
+   * @param springSystem the spring system to update
+   */
+  public void addSpringSystem(BaseSpringSystem springSystem) {
+    if (springSystem == null) {
+      throw new IllegalArgumentException("springSystem is required");
+    }
+    if (!mSpringSystems.contains(springSystem)) {
+      mSpringSystems.add(springSystem);
+    }
+  }
+
+  /**
+   * replace the selected config, which is immutable, by an edited copy in the registry and in
+   * every spring using it
+   */
+  private void replaceSelectedSpringConfig(SpringConfig springConfig) {
+    SpringConfig oldConfig = mSelectedSpringConfig;
+    springConfigRegistry.replaceSpringConfig(oldConfig, springConfig);
+    int index = mSpringConfigs.indexOf(oldConfig);
+    if (index >= 0) {
+      mSpringConfigs.set(index, springConfig);
+    }
+    for (BaseSpringSystem springSystem : mSpringSystems) {
+      springSystem.replaceSpringConfig(oldConfig, springConfig);
+    }
+    mSelectedSpringConfig = springConfig;
+  }
+
   /**
    * reload the springs from the registry and update the UI
    */
@@ -243,8 +278,11 @@ public class SpringConfiguratorView extends FrameLayout {
       spinnerAdapter.add(entry.getValue());
     }
     // Add the default config in last.
-    mSpringConfigs.add(SpringConfig.defaultConfig);
-    spinnerAdapter.add(springConfigMap.get(SpringConfig.defaultConfig));
+    String defaultConfigName = springConfigMap.get(SpringConfig.defaultConfig);
+    if (defaultConfigName != null) {
+      mSpringConfigs.add(SpringConfig.defaultConfig);
+      spinnerAdapter.add(defaultConfigName);
+    }
     spinnerAdapter.notifyDataSetChanged();
     if (mSpringConfigs.size() > 0) {
       mSpringSelectorSpinner.setSelection(0);
@@ -276,16 +314,18 @@ public class SpringConfiguratorView extends FrameLayout {
 
       if (seekBar == mTensionSeekBar) {
         float scaledTension = ((val) * tensionRange) / MAX_SEEKBAR_VAL + MIN_TENSION;
-        mSelectedSpringConfig.tension =
-            OrigamiValueConverter.tensionFromOrigamiValue(scaledTension);
+        replaceSelectedSpringConfig(new SpringConfig(
+            OrigamiValueConverter.tensionFromOrigamiValue(scaledTension),
+            mSelectedSpringConfig.friction));
         String roundedTensionLabel = DECIMAL_FORMAT.format(scaledTension);
         mTensionLabel.setText("T:" + roundedTensionLabel);
       }
 
       if (seekBar == mFrictionSeekBar) {
         float scaledFriction = ((val) * frictionRange) / MAX_SEEKBAR_VAL + MIN_FRICTION;
-        mSelectedSpringConfig.friction =
-            OrigamiValueConverter.frictionFromOrigamiValue(scaledFriction);
+        replaceSelectedSpringConfig(new SpringConfig(
+            mSelectedSpringConfig.tension,
+            OrigamiValueConverter.frictionFromOrigamiValue(scaledFriction)));
         String roundedFrictionLabel = DECIMAL_FORMAT.format(scaledFriction);
         mFrictionLabel.setText("F:" + roundedFrictionLabel);
       }